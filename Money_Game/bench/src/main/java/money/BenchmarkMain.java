@@ -0,0 +1,20 @@
+package money;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkMain {
+	/**
+	 * Run the benchmarks with the gc profiler turned on, so every result also has the allocation rate.
+	 * <p>
+	 * Any normal JMH arguments can be passed in, ie) {@code java -jar target/benchmarks.jar Query -p players=5000}
+	 */
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,84 @@
+package money;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the scalar and Vector API round kernels (see {@link RoundKernel}).
+ * <p>
+ * {@code halve} is the kernel on its own, and {@code runRound} is a whole round of a {@link PlayerTable} using the
+ * kernel, which also has to give out the pot and move the player in last.
+ * <p>
+ * Both change the money they run on, and left alone it would all be halved down to subnormals (which are far slower)
+ * and then 0. So every iteration is one batch of {@value #BATCH} calls, starting from the money and table as they
+ * were generated, which are put back before the next iteration outside the timing. The score is the time for the
+ * whole batch, so divide it by {@value #BATCH} for a single call. {@value #BATCH} halvings are far too few to reach a
+ * subnormal from the starting money.
+ * <p>
+ * The forked JVM is started with {@code jdk.incubator.vector}, so "vector" really is the Vector API (if it were
+ * missing, it would fall back to the scalar kernel and both would give the same numbers).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 200, batchSize = KernelBenchmark.BATCH)
+@Measurement(iterations = 100, batchSize = KernelBenchmark.BATCH)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class KernelBenchmark {
+	/** The number of calls timed together between each reset */
+	public static final int BATCH = 64;
+
+	@State(Scope.Thread)
+	public static class Money {
+		@Param({ "scalar", "vector" })
+		String kernel;
+
+		@Param({ "1000", "100000", "1000000" })
+		int players;
+
+		RoundKernel round_kernel;
+		PlayerTable start_table;
+		double[] start_money;
+		double[] money;
+		PlayerTable table;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			round_kernel = RoundKernel.forName(kernel);
+			start_table = new Game().genPlayerTable(players);
+			start_table.setKernel(round_kernel);
+			start_money = new double[players];
+			for (int i = 0; i < players; i++)
+				start_money[i] = start_table.getMoney(i);
+			money = new double[players];
+		}
+
+		// Before every batch, so each one runs on the money as it was generated.
+		@Setup(Level.Iteration)
+		public void reset() {
+			System.arraycopy(start_money, 0, money, 0, players);
+			table = start_table.copy();
+		}
+	}
+
+	@Benchmark
+	public double halve(Money state) {
+		return state.round_kernel.halve(state.money, 0, state.players);
+	}
+
+	@Benchmark
+	public double runRound(Money state) {
+		return state.table.runRound();
+	}
+}
@@ -0,0 +1,64 @@
+package money;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the math methods of finding the winner and their money.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueryBenchmark {
+	@Param({ "10", "1000", "5000" })
+	int players;
+
+	@Param({ "15", "1079", "10000" })
+	int rounds;
+
+	Game game;
+	PriorityQueue<Player> player_queue;
+	Player winner;
+	double sum;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		game = new Game();
+		player_queue = game.genPlayerQueue(players);
+		winner = game.getWinner(player_queue, rounds);
+		sum = game.getSum(player_queue);
+	}
+
+	@Benchmark
+	public Player getWinner() {
+		return game.getWinner(player_queue, rounds);
+	}
+
+	// Includes summing the heap
+	@Benchmark
+	public double getMoney() {
+		return game.getMoney(player_queue, winner, rounds);
+	}
+
+	// With the sum already known
+	@Benchmark
+	public double getMoneyKnownSum() {
+		return game.getMoney(winner, players, sum, rounds);
+	}
+}
@@ -0,0 +1,50 @@
+package money;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the methods that only depend on the number of players.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RosterBenchmark {
+	@Param({ "10", "1000", "5000" })
+	int players;
+
+	Game game;
+	PriorityQueue<Player> player_queue;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		game = new Game();
+		player_queue = game.genPlayerQueue(players);
+	}
+
+	@Benchmark
+	public PriorityQueue<Player> genPlayerQueue() {
+		return game.genPlayerQueue(players);
+	}
+
+	@Benchmark
+	public double getSum() {
+		return game.getSum(player_queue);
+	}
+}
@@ -0,0 +1,97 @@
+package money;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the brute force methods.
+ * <p>
+ * All four change the money of the players in the heap, and a single round with 10 players takes well under a
+ * microsecond, which is too short to reset the players around every call. So every iteration is one batch of calls,
+ * each carrying on from the money the one before left, and every player gets their starting money back before the
+ * next batch (outside the timing). The score is the time for the whole batch: {@value #ROUND_BATCH} calls for
+ * {@code runRound}, and {@value #ROUNDS_BATCH} calls for the others, which run far more rounds per call.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 200, batchSize = SimulationBenchmark.ROUND_BATCH)
+@Measurement(iterations = 100, batchSize = SimulationBenchmark.ROUND_BATCH)
+@Fork(1)
+public class SimulationBenchmark {
+	/** The number of calls to runRound timed together between each reset */
+	public static final int ROUND_BATCH = 64;
+	/** The number of calls to the methods that run many rounds timed together between each reset */
+	public static final int ROUNDS_BATCH = 4;
+
+	@State(Scope.Thread)
+	public static class Roster {
+		@Param({ "10", "1000", "5000" })
+		int players;
+
+		Game game;
+		PriorityQueue<Player> player_queue;
+		Player[] roster;
+		double[] start_money;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			game = new Game();
+			player_queue = game.genPlayerQueue(players);
+			roster = player_queue.toArray(new Player[0]);
+			start_money = new double[roster.length];
+			for (int i = 0; i < roster.length; i++)
+				start_money[i] = roster[i].getMoney();
+		}
+
+		// Before every batch, so each one starts from the money as it was generated.
+		@Setup(Level.Iteration)
+		public void reset() {
+			for (int i = 0; i < roster.length; i++)
+				roster[i].setMoney(start_money[i]);
+		}
+	}
+
+	public static class Rounds extends Roster {
+		@Param({ "15", "1079", "10000" })
+		int rounds;
+	}
+
+	@Benchmark
+	public PriorityQueue<Player> runRound(Roster state) {
+		return state.game.runRound(state.player_queue);
+	}
+
+	@Benchmark
+	@Warmup(iterations = 100, batchSize = ROUNDS_BATCH)
+	@Measurement(iterations = 30, batchSize = ROUNDS_BATCH)
+	public PriorityQueue<Player> runNRounds(Rounds state) {
+		return state.game.runNRounds(state.player_queue, state.rounds);
+	}
+
+	@Benchmark
+	@Warmup(iterations = 100, batchSize = ROUNDS_BATCH)
+	@Measurement(iterations = 30, batchSize = ROUNDS_BATCH)
+	public PriorityQueue<Player> runNRoundsCompensated(Rounds state) {
+		return state.game.runNRoundsCompensated(state.player_queue, state.rounds);
+	}
+
+	@Benchmark
+	@Warmup(iterations = 100, batchSize = ROUNDS_BATCH)
+	@Measurement(iterations = 30, batchSize = ROUNDS_BATCH)
+	public LazyRoundEngine runNRoundsLazy(Rounds state) {
+		return state.game.runNRoundsLazy(state.player_queue, state.rounds);
+	}
+}
@@ -0,0 +1,48 @@
+package money;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for filling the money of one player over a range of rounds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrajectoryBenchmark {
+	@Param({ "10", "1000", "100000" })
+	int players;
+
+	@Param({ "10000000" })
+	int length;
+
+	Standings standings;
+	double[] trajectory;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		standings = new Game().getStandings(new Game().genPlayerQueue(players));
+		trajectory = new double[length];
+	}
+
+	@Benchmark
+	public double[] getTrajectory() {
+		standings.getTrajectory(players / 2, 1_000_000_000L, trajectory);
+		return trajectory;
+	}
+}
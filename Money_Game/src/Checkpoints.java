@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+
+public class Checkpoints {
+	private static final String PREFIX = "round-";
+	private static final String SUFFIX = ".snap";
+
+	private final Path dir;
+	private final Game game;
+	private final int num_players;
+	private final long every;
+	// Every checkpoint in the directory by its round
+	private final TreeMap<Long, Path> saved = new TreeMap<>();
+	// The last state asked for, so the round after it only costs one round
+	private PlayerTable last;
+
+	/**
+	 * A long brute force run that saves its state every so many rounds, so it can carry on from where it got to if
+	 * the process dies, and so the state at any round only has to be run from the closest checkpoint before it
+	 * rather than from round 0.
+	 * <p>
+	 * Every checkpoint is a {@linkplain Snapshot} of the whole table (the seed, the round, and every players id and
+	 * money in order, 12 bytes a player), in its own file named by its round. That is everything a round depends on,
+	 * so running on from a checkpoint gives the exact same results as never having stopped. A checkpoint is written to
+	 * a temporary file and then moved into place, so a process dying part way through writing one never leaves a
+	 * broken checkpoint behind.
+	 * <p>
+	 * {@linkplain #getState(long)} starts from whichever is closer of the last checkpoint at or below the round and
+	 * the last state it gave, so asking for round n + 1 after round n only runs one round.
+	 * <p>
+	 * Time for a state = O(d * p), see {@linkplain PlayerTable#runNRounds(long)} <br>
+	 * Space = O(p) in memory, O(p * n / e) on disk <br>
+	 * where p = number of players, n = rounds run so far, e = rounds between checkpoints, and d = rounds from the
+	 * closest state before the one asked for.
+	 * <p>
+	 * Note: this is safe to use from many threads, but only one run should use a directory at once.
+	 *
+	 * @param dir The directory to keep the checkpoints in, made if it does not exist. Any checkpoints already in it
+	 *            are used.
+	 * @param game The game to generate the players with, see {@linkplain Game#genPlayerTable(int)}
+	 * @param num_players The number of players
+	 * @param every The number of rounds between checkpoints
+	 * @throws IOException If the directory cannot be made or read
+	 * @throws IllegalStateException If a checkpoint in the directory is from a different game
+	 */
+	public Checkpoints(Path dir, Game game, int num_players, long every) throws IOException {
+		if (num_players <= 0)
+			throw new IllegalArgumentException("There must be at least one player: " + num_players);
+		if (every <= 0)
+			throw new IllegalArgumentException("There must be at least one round between checkpoints: " + every);
+		this.dir = dir;
+		this.game = game;
+		this.num_players = num_players;
+		this.every = every;
+
+		Files.createDirectories(dir);
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				long round;
+				try {
+					round = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+				} catch (NumberFormatException e) {
+					continue;
+				}
+				Snapshot snapshot = Snapshot.open(file);
+				if (snapshot.getSeed() != game.getSeed() || snapshot.size() != num_players || snapshot.getRound() != round)
+					throw new IllegalStateException(file + " is not a checkpoint of " + num_players + " players with seed "
+							+ game.getSeed());
+				saved.put(round, file);
+			}
+		}
+	}
+
+	/**
+	 * The state of the game after the given number of rounds, saving a checkpoint at every multiple of
+	 * {@code every} rounds on the way there that has not been saved yet.
+	 *
+	 * @param round The number of rounds run
+	 * @return The players after that many rounds. This is a copy, so running more rounds on it changes nothing here.
+	 * @throws IOException If a checkpoint cannot be read or written
+	 */
+	public synchronized PlayerTable getState(long round) throws IOException {
+		if (round < 0)
+			throw new IllegalArgumentException("The number of rounds cannot be negative: " + round);
+		PlayerTable table = closest(round);
+
+		while (table.getRound() < round) {
+			// Stop at the next checkpoint, or the round asked for if that comes first.
+			long next = Math.min(round, (table.getRound() / every + 1) * every);
+			table.runNRounds(next - table.getRound());
+			if (next % every == 0 && !saved.containsKey(next))
+				save(table);
+		}
+		last = table;
+		return table.copy();
+	}
+
+	/**
+	 * @return The round of every checkpoint saved, from the first to the last
+	 */
+	public synchronized NavigableSet<Long> getRounds() {
+		return Collections.unmodifiableNavigableSet(new TreeMap<>(saved).navigableKeySet());
+	}
+
+	/**
+	 * @return The directory the checkpoints are kept in
+	 */
+	public Path getDirectory() {
+		return dir;
+	}
+
+	// A copy of the closest state at or below the round: the last state given, a checkpoint, or the start.
+	private PlayerTable closest(long round) throws IOException {
+		Map.Entry<Long, Path> checkpoint = saved.floorEntry(round);
+		long checkpoint_round = checkpoint == null ? 0 : checkpoint.getKey();
+		if (last != null && last.getRound() <= round && last.getRound() >= checkpoint_round)
+			return last.copy();
+		if (checkpoint == null)
+			return game.genPlayerTable(num_players);
+
+		PlayerTable table = Snapshot.open(checkpoint.getValue()).toTable();
+		table.setRound(checkpoint_round);
+		return table;
+	}
+
+	// Write a checkpoint next to where it goes, then move it into place so it is either all there or not at all.
+	private void save(PlayerTable table) throws IOException {
+		Path file = dir.resolve(PREFIX + table.getRound() + SUFFIX);
+		Path temp = dir.resolve(PREFIX + table.getRound() + SUFFIX + ".tmp");
+		Snapshot.write(temp, table, game.getSeed());
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		saved.put(table.getRound(), file);
+	}
+}
@@ -0,0 +1,57 @@
+public final class CompensatedSum {
+	private double sum;
+	// The low order bits every add has rounded away so far
+	private double compensation;
+
+	/**
+	 * A running sum that does not lose money to rounding.
+	 * <p>
+	 * Adding a small {@code double} to a big one rounds away the low bits of the small one, so summing thousands of
+	 * players one after the other can be off by a lot more than the last bit. This keeps the bits that were rounded
+	 * away in a second {@code double} and adds them back at the end (Neumaier's version of Kahan summation, which
+	 * also works when a value is bigger than the sum so far).
+	 * <p>
+	 * Logic: <br>
+	 * For {@code t = sum + x}, if {@code |sum| >= |x|} then {@code (sum - t) + x} is exactly what was rounded away
+	 * (and the other way around if x is bigger). Both of these are exact, so the error of the whole sum is only ever
+	 * about one rounding, no matter how many values are added.
+	 * <p>
+	 * Time: O(1) per add, about the same as a normal add as both run at the same time <br>
+	 * Space: O(1)
+	 */
+	public CompensatedSum() {
+	}
+
+	/**
+	 * @param value The value to add to the sum
+	 */
+	public void add(double value) {
+		double t = sum + value;
+		compensation += Math.abs(sum) >= Math.abs(value) ? (sum - t) + value : (value - t) + sum;
+		sum = t;
+	}
+
+	/**
+	 * @return The sum of every value added so far
+	 */
+	public double get() {
+		return sum + compensation;
+	}
+
+	/**
+	 * Time: O(n)
+	 *
+	 * @param values The values to sum
+	 * @return The sum of the values, see {@linkplain #CompensatedSum()}
+	 */
+	public static double sum(double[] values) {
+		double sum = 0;
+		double compensation = 0;
+		for (double value : values) {
+			double t = sum + value;
+			compensation += Math.abs(sum) >= Math.abs(value) ? (sum - t) + value : (value - t) + sum;
+			sum = t;
+		}
+		return sum + compensation;
+	}
+}
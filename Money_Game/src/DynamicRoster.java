@@ -0,0 +1,422 @@
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+public class DynamicRoster {
+	// The players, in a treap ordered by position. Position r (0 = most money) is index (offset + r) mod(p) in the tree.
+	private Node root;
+	private int offset;
+	private long round;
+	// Kept with its rounding error, so players joining and leaving does not make it drift
+	private final CompensatedSum sum = new CompensatedSum();
+	private final IdentityHashMap<Player, Node> nodes = new IdentityHashMap<>();
+	private final Random rnd = new Random(1);
+	// The two halves of the last split
+	private Node split_left;
+	private Node split_right;
+
+	private static final class Node {
+		final Player player;
+		final int priority;
+		// The players money at the end of round 'stamp'. Every round since then has just halved it.
+		double money;
+		long stamp;
+		int size = 1;
+		Node left;
+		Node right;
+		Node parent;
+
+		Node(Player player, double money, long stamp, int priority) {
+			this.player = player;
+			this.money = money;
+			this.stamp = stamp;
+			this.priority = priority;
+		}
+	}
+
+	/**
+	 * A game where players can join, leave, and deposit money between rounds, without rebuilding anything.
+	 * <p>
+	 * Logic: <br>
+	 * {@linkplain Game#getWinner(PriorityQueue, long)} works because a round never changes the order of the players,
+	 * it just moves the player in last to the top. So the players are kept in a tree in order of position, along with
+	 * an offset for where position 0 is, and a round is
+	 * <ul>
+	 * 	<li> Find the player in last (O(log(p)) in the tree) and give them the pot, which is always half the sum </li>
+	 * 	<li> Move the offset back by one, so they are now in first </li>
+	 * </ul>
+	 * Nobody else is touched, as each player remembers their money along with the round they last had it. Any rounds
+	 * since then have just halved it. The sum never changes in a round, so it is kept as a running (compensated)
+	 * total that only changes when someone joins, leaves, or deposits.
+	 * <p>
+	 * Joining, leaving, and depositing change the order, so they first turn the tree so position 0 is index 0 (one
+	 * split and merge), then find where the player goes by their money.
+	 * <p>
+	 * Time: O(log(p)) for a join, leave, deposit, round, or any query <br>
+	 * Space: O(p) <br>
+	 * where p = number of players.
+	 *
+	 * @param player_queue The players to start with. The heap is not changed, and the players are only changed when
+	 *        they leave (or are looked up with {@linkplain #getPlayer(int)}).
+	 */
+	public DynamicRoster(PriorityQueue<Player> player_queue) {
+		Player[] players = player_queue.toArray(new Player[0]);
+		Arrays.sort(players, new PlayerComp());
+		for (Player p : players) {
+			if (nodes.containsKey(p))
+				throw new IllegalArgumentException("Player is in the heap twice: " + p);
+			checkMoney(p.getMoney());
+			Node n = new Node(p, p.getMoney(), 0, rnd.nextInt());
+			nodes.put(p, n);
+			root = merge(root, n);
+			sum.add(p.getMoney());
+		}
+		if (root != null) root.parent = null;
+	}
+
+	/**
+	 * An empty game, see {@linkplain #DynamicRoster(PriorityQueue)}.
+	 */
+	public DynamicRoster() {
+		this(new PriorityQueue<>(new PlayerComp()));
+	}
+
+	/**
+	 * @return The number of players
+	 */
+	public int size() {
+		return size(root);
+	}
+
+	/**
+	 * @return The number of rounds run so far
+	 */
+	public long getRound() {
+		return round;
+	}
+
+	/**
+	 * Time: O(1)
+	 *
+	 * @return The sum of money for all players
+	 */
+	public double getSum() {
+		return sum.get();
+	}
+
+	/**
+	 * @param player The player
+	 * @return Whether the player is in the game
+	 */
+	public boolean contains(Player player) {
+		return nodes.containsKey(player);
+	}
+
+	/**
+	 * Add a player to the game, with the money they have now.
+	 *
+	 * @param player The player
+	 * @throws IllegalArgumentException If the player is already in the game, or their money is negative or not finite.
+	 */
+	public void join(Player player) {
+		if (nodes.containsKey(player))
+			throw new IllegalArgumentException("Player is already in the game: " + player);
+		double money = player.getMoney();
+		checkMoney(money);
+
+		// Turn the tree so it is in order of position, then go after every player with at least as much money.
+		normalize();
+		int index = 0;
+		for (Node t = root; t != null;) {
+			if (money(t) < money) {
+				t = t.left;
+			}
+			else {
+				index += size(t.left) + 1;
+				t = t.right;
+			}
+		}
+		Node n = new Node(player, money, round, rnd.nextInt());
+		nodes.put(player, n);
+		split(root, index);
+		Node right = split_right;
+		root = merge(merge(split_left, n), right);
+		root.parent = null;
+		sum.add(money);
+	}
+
+	/**
+	 * Remove a player from the game. Their money is set to the money they leave with.
+	 *
+	 * @param player The player
+	 * @return Whether the player was in the game
+	 */
+	public boolean leave(Player player) {
+		Node n = nodes.remove(player);
+		if (n == null) return false;
+		double money = money(n);
+
+		int index = indexOf(n);
+		split(root, index);
+		Node left = split_left;
+		split(split_right, 1);
+		root = merge(left, split_right);
+		if (root != null) root.parent = null;
+
+		// Position 0 stays where it was, unless it was the player that left (then the next player is now first).
+		int p = size();
+		if (index < offset) offset--;
+		if (offset >= p) offset = 0;
+
+		sum.add(-money);
+		player.setMoney(money);
+		return true;
+	}
+
+	/**
+	 * Add money to a player in the game.
+	 *
+	 * @param player The player
+	 * @param amount The amount of money to add
+	 * @throws IllegalArgumentException If the player is not in the game, or the amount is negative or not finite.
+	 */
+	public void deposit(Player player, double amount) {
+		if (!nodes.containsKey(player))
+			throw new IllegalArgumentException("Player is not in the game: " + player);
+		checkMoney(amount);
+		// Their position can change, so they leave and join again with the new amount.
+		leave(player);
+		player.addMoney(amount);
+		join(player);
+	}
+
+	/**
+	 * Simulate a single round of the game.
+	 * <p>
+	 * Time: O(log(p))
+	 */
+	public void runRound() {
+		int p = size();
+		if (p == 0) return;
+		int last = index(p - 1);
+		Node recipient = select(last);
+
+		// Everyone is halved by the round going up. The recipient then gets the pot, which is half of everyones money.
+		round++;
+		recipient.money = money(recipient) + sum.get()/2;
+		recipient.stamp = round;
+		offset = last;
+	}
+
+	/**
+	 * Simulate a given number of rounds of the game.
+	 * <p>
+	 * If there are more rounds than players, every player gets the pot at least once, so instead every players
+	 * money is worked out with {@linkplain Game#getMoney(double, int, int, double, long)}.
+	 * <p>
+	 * Time: O(min(n log(p), p)) <br>
+	 * where p = number of players, and n = number of rounds run.
+	 *
+	 * @param rounds Number of rounds to be run
+	 */
+	public void runNRounds(long rounds) {
+		int p = size();
+		if (p == 0) return;
+		if (rounds < p) {
+			for (long i = 0; i < rounds; i++)
+				runRound();
+			return;
+		}
+
+		normalize();
+		setMoney(root, 0, p, rounds);
+		round += rounds;
+		offset = (int) ((p - rounds % p) % p);
+	}
+
+	// Set the money of every player in the subtree to their money after the rounds, where 'first' is the position of
+	// the first player in it.
+	private void setMoney(Node t, int first, int p, long rounds) {
+		if (t == null) return;
+		int position = first + size(t.left);
+		t.money = Game.getMoney(money(t), position, p, sum.get(), rounds);
+		t.stamp = round + rounds;
+		setMoney(t.left, first, p, rounds);
+		setMoney(t.right, position + 1, p, rounds);
+	}
+
+	/**
+	 * Obtain the player at a given position, where 0 is the player with the most money. Their money is set to their
+	 * money in the game.
+	 * <p>
+	 * Time: O(log(p))
+	 *
+	 * @param position Position of the player
+	 * @return The player at the specified position, or null if there is none.
+	 */
+	public Player getPlayer(int position) {
+		if (position < 0 || position >= size()) return null;
+		Node n = select(index(position));
+		n.player.setMoney(money(n));
+		return n.player;
+	}
+
+	/**
+	 * @param player The player
+	 * @return The position of the player (0 = most money), or -1 if they are not in the game
+	 */
+	public int getPosition(Player player) {
+		Node n = nodes.get(player);
+		if (n == null) return -1;
+		int p = size();
+		return (indexOf(n) - offset + p) % p;
+	}
+
+	/**
+	 * @param player The player
+	 * @return The money the player has now, or NaN if they are not in the game
+	 */
+	public double getMoney(Player player) {
+		Node n = nodes.get(player);
+		return n == null ? Double.NaN : money(n);
+	}
+
+	/**
+	 * Find the player that will be winning after the given number of rounds, if nobody joins, leaves, or deposits.
+	 * Same as {@linkplain Game#getWinner(PriorityQueue, long)}, without having to find the player in a heap.
+	 * <p>
+	 * Time: O(log(p))
+	 *
+	 * @param rounds The number of rounds from now
+	 * @return The winning player, or null if there are no players
+	 */
+	public Player getWinner(long rounds) {
+		int p = size();
+		if (p == 0) return null;
+		return getPlayer(rounds <= 0 ? 0 : (int) ((p - rounds % p) % p));
+	}
+
+	/**
+	 * The money the winning player will have after the given number of rounds, if nobody joins, leaves, or deposits.
+	 * <p>
+	 * Time: O(log(p))
+	 *
+	 * @param rounds The number of rounds from now
+	 * @return The money of the winner, or 0 if there are no players
+	 */
+	public double getWinnerMoney(long rounds) {
+		Player winner = getWinner(rounds);
+		return winner == null ? 0 : getMoney(winner, rounds);
+	}
+
+	/**
+	 * The money a player will have after the given number of rounds, if nobody joins, leaves, or deposits.
+	 * <p>
+	 * Time: O(log(p))
+	 *
+	 * @param player The player
+	 * @param rounds The number of rounds from now
+	 * @return The money the player will have, or NaN if they are not in the game
+	 */
+	public double getMoney(Player player, long rounds) {
+		Node n = nodes.get(player);
+		if (n == null) return Double.NaN;
+		return Game.getMoney(money(n), getPosition(player), size(), sum.get(), rounds);
+	}
+
+	// The money of a player now.
+	private double money(Node n) {
+		return Math.scalb(n.money, -(int) Math.min(round - n.stamp, Game.MAX_HALVINGS));
+	}
+
+	private static void checkMoney(double money) {
+		if (!(money >= 0) || Double.isInfinite(money))
+			throw new IllegalArgumentException("Money must be a finite amount >= 0: " + money);
+	}
+
+	// The index in the tree of a position
+	private int index(int position) {
+		int i = offset + position;
+		int p = size();
+		return i >= p ? i - p : i;
+	}
+
+	// Turn the tree so that position 0 is index 0.
+	private void normalize() {
+		if (offset == 0) return;
+		split(root, offset);
+		root = merge(split_right, split_left);
+		root.parent = null;
+		offset = 0;
+	}
+
+	// TREAP
+	private static int size(Node t) {
+		return t == null ? 0 : t.size;
+	}
+
+	private static Node update(Node t) {
+		t.size = 1 + size(t.left) + size(t.right);
+		if (t.left != null) t.left.parent = t;
+		if (t.right != null) t.right.parent = t;
+		return t;
+	}
+
+	// Join two trees, with every index in 'a' before every index in 'b'.
+	private static Node merge(Node a, Node b) {
+		if (a == null) return b;
+		if (b == null) return a;
+		if (a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			return update(a);
+		}
+		b.left = merge(a, b.left);
+		return update(b);
+	}
+
+	// Split a tree into the first k indexes (split_left) and the rest (split_right).
+	private void split(Node t, int k) {
+		if (t == null) {
+			split_left = split_right = null;
+			return;
+		}
+		if (size(t.left) >= k) {
+			split(t.left, k);
+			t.left = split_right;
+			split_right = update(t);
+		}
+		else {
+			split(t.right, k - size(t.left) - 1);
+			t.right = split_left;
+			split_left = update(t);
+		}
+	}
+
+	// The node at an index
+	private Node select(int index) {
+		Node t = root;
+		while (true) {
+			int left = size(t.left);
+			if (index < left) {
+				t = t.left;
+			}
+			else if (index == left) {
+				return t;
+			}
+			else {
+				index -= left + 1;
+				t = t.right;
+			}
+		}
+	}
+
+	// The index of a node, by walking up to the root.
+	private int indexOf(Node n) {
+		int index = size(n.left);
+		for (; n.parent != null; n = n.parent)
+			if (n == n.parent.right)
+				index += size(n.parent.left) + 1;
+		return index;
+	}
+}
@@ -0,0 +1,229 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+public class ExactRoundEngine {
+	private final Player[] players;
+	// Starting money of every player as an integer, ie) money = init * 2^-scale
+	private final long[] init;
+	private final long total;
+	private final int scale;
+	// Slots of the players, from the most money to the least, starting at head and wrapping around
+	private final int[] order;
+	private int head;
+	// The last round (minus one) each player got the pot, or -1 if they never have
+	private final int[] last_pot;
+	// prev_pot[j] = the round (minus one) before round j + 1 that the same player got the pot, or -1
+	private int[] prev_pot;
+	private int round;
+
+	/**
+	 * A brute-force simulation of the game that never loses any money or gets the order of the players wrong.
+	 * <p>
+	 * {@linkplain Game#runNRounds(PriorityQueue, int)} halves every players money as a {@code double}, so after
+	 * about 1074 rounds the poorest players run out of bits, stop halving properly, and end up in the wrong place.
+	 * <p>
+	 * Logic: <br>
+	 * Every players money is stored as an integer M, and everyone shares the same power of two, so after n rounds
+	 * {@code money = M * 2^-n}. Halving everyone is then free, as it just means n goes up by one and every M stays
+	 * the same. The pot is half of the sum, and as the sum never changes it is {@code T * 2^(n - 1)} where T is the
+	 * sum of the starting M's. So the only thing that changes on round n is that the player in last has
+	 * {@code T * 2^(n - 1)} added to their M, which is exact. <br>
+	 * That means every players M is just their starting money plus T times a 1 bit for every round they got the pot,
+	 * so each player only needs to remember the rounds they got the pot. And because T is bigger than any one players
+	 * starting money, the player who got the pot most recently always has the bigger M.
+	 * <p>
+	 * Time per round: O(1), as the recipient always ends up richest so the order is a circle that starts one earlier
+	 * (the same as {@linkplain PlayerTable}) <br>
+	 * Space: O(p + n) <br>
+	 * where p = number of players, and n = number of rounds run.
+	 * <p>
+	 * Note: the starting money of every player has to be a multiple of the same power of two with a sum that fits
+	 * in a {@code long} (which is always true for {@linkplain Game#genPlayerQueue(int)}).
+	 *
+	 * @param player_queue The player heap. Neither the heap nor the players are changed (until {@linkplain #toQueue()}).
+	 * @throws IllegalArgumentException If any players money is negative or the money cannot be stored exactly.
+	 */
+	public ExactRoundEngine(PriorityQueue<Player> player_queue) {
+		players = player_queue.toArray(new Player[0]);
+		Arrays.sort(players, new PlayerComp());
+
+		// Find the smallest power of two that makes every players money an integer.
+		int s = 0;
+		for (Player p : players) {
+			double money = p.getMoney();
+			if (!(money >= 0) || Double.isInfinite(money))
+				throw new IllegalArgumentException("Money must be a finite amount >= 0: " + p);
+			if (money == 0) continue;
+			long bits = Double.doubleToRawLongBits(money);
+			long mantissa = bits & 0xFFFFFFFFFFFFFL;
+			int exponent = Math.getExponent(money) - 52;
+			if (exponent >= Double.MIN_EXPONENT - 52)
+				mantissa |= 1L << 52;
+			else
+				exponent = Double.MIN_EXPONENT - 52;
+			s = Math.max(s, -(exponent + Long.numberOfTrailingZeros(mantissa)));
+		}
+		scale = s;
+
+		init = new long[players.length];
+		long t = 0;
+		for (int i = 0; i < players.length; i++) {
+			double scaled = Math.scalb(players[i].getMoney(), scale);
+			if (scaled >= 0x1p62)
+				throw new IllegalArgumentException("Money cannot be stored exactly: " + players[i]);
+			init[i] = (long) scaled;
+			try {
+				t = Math.addExact(t, init[i]);
+			} catch (ArithmeticException e) {
+				throw new IllegalArgumentException("Sum of money cannot be stored exactly", e);
+			}
+		}
+		total = t;
+
+		order = new int[players.length];
+		last_pot = new int[players.length];
+		for (int i = 0; i < players.length; i++) {
+			order[i] = i;
+			last_pot[i] = -1;
+		}
+		prev_pot = new int[16];
+		round = 0;
+	}
+
+	/**
+	 * Simulate a single round of the game.
+	 */
+	public void runRound() {
+		int last = players.length - 1;
+		if (last < 0) return;
+		if (round == Integer.MAX_VALUE - 8)
+			throw new IllegalStateException("Too many rounds to store exactly");
+
+		// Everyone halving is free: the shared power of two goes down by one (round++).
+		// The player in last gets T * 2^(round - 1) added to their M, which is remembered as the round they got the pot.
+		int last_slot = slot(last);
+		int recipient = order[last_slot];
+		if (round == prev_pot.length)
+			prev_pot = Arrays.copyOf(prev_pot, round * 2);
+		prev_pot[round] = last_pot[recipient];
+		last_pot[recipient] = round;
+		round++;
+
+		if (last == 0 || compare(recipient, order[head]) > 0) {
+			// They are now the richest player, so the circle just starts one earlier.
+			head = last_slot;
+			return;
+		}
+		// Otherwise binary search for the first position with less money than them and shift everyone below down one.
+		int lo = 0;
+		int hi = last;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (compare(order[slot(mid)], recipient) < 0)
+				hi = mid;
+			else
+				lo = mid + 1;
+		}
+		for (int i = last; i > lo; i--)
+			order[slot(i)] = order[slot(i - 1)];
+		order[slot(lo)] = recipient;
+	}
+
+	/**
+	 * Simulate a given number of rounds of the game.
+	 *
+	 * @param rounds Number of rounds to be run
+	 */
+	public void runNRounds(long rounds) {
+		for (long i = 0; i < rounds; i++)
+			runRound();
+	}
+
+	// The slot of a position
+	private int slot(int position) {
+		int s = head + position;
+		return s >= order.length ? s - order.length : s;
+	}
+
+	// Compare the exact money of two players.
+	private int compare(int a, int b) {
+		// Each round belongs to only one player, so two players can only have the same last pot if neither had one.
+		// Otherwise the most recent pot is a bit in M worth more than everything below it, as T >= any starting money.
+		if (last_pot[a] != last_pot[b])
+			return Integer.compare(last_pot[a], last_pot[b]);
+		return Long.compare(init[a], init[b]);
+	}
+
+	/**
+	 * @return The number of rounds run so far
+	 */
+	public long getRound() {
+		return round;
+	}
+
+	/**
+	 * @return The number of players
+	 */
+	public int size() {
+		return players.length;
+	}
+
+	/**
+	 * @return The sum of all players money, which never changes.
+	 */
+	public double getSum() {
+		return Math.scalb((double) total, -scale);
+	}
+
+	/**
+	 * Obtain the player at a given position, where 0 is the player with the most money.
+	 *
+	 * @param index Position of the player
+	 * @return The player at the specified index, or null if there is none.
+	 */
+	public Player getPlayer(int index) {
+		if (index < 0 || index >= players.length) return null;
+		return players[order[slot(index)]];
+	}
+
+	/**
+	 * Obtain the money of the player at a given position, rounded to the nearest {@code double}.
+	 * <p>
+	 * Time = O(1) for the top players, but up to O(n / p) for players that have had the pot many times.
+	 *
+	 * @param index Position of the player
+	 * @return The money of the player at the specified index.
+	 */
+	public double getMoney(int index) {
+		int slot = order[slot(index)];
+		long shift = (long) scale + round;
+
+		// M * 2^-shift, where M = init + T * (2^(j - 1) for every round j they got the pot).
+		// The most recent pot is added first, and every pot before it is worth at most half as much.
+		double money = 0;
+		for (int pot = last_pot[slot]; pot >= 0; pot = prev_pot[pot]) {
+			double amount = Math.scalb((double) total, (int) Math.max(pot - shift, -Game.MAX_HALVINGS));
+			if (amount == 0) break;
+			money += amount;
+		}
+		return money + Math.scalb((double) init[slot], (int) Math.max(-shift, -Game.MAX_HALVINGS));
+	}
+
+	/**
+	 * Build a max heap of the players, with each players money set to their exact money rounded to a {@code double}.
+	 * <p>
+	 * Note: after about 1074 rounds the poorest players money rounds to 0, so the heap can no longer tell them apart.
+	 * Use {@linkplain #getPlayer(int)} to get the exact order.
+	 *
+	 * @return A max heap of players based on the amount of money they have.
+	 */
+	public PriorityQueue<Player> toQueue() {
+		PriorityQueue<Player> pq = new PriorityQueue<>(Math.max(1, players.length), new PlayerComp());
+		for (int i = 0; i < players.length; i++) {
+			Player p = getPlayer(i);
+			p.setMoney(getMoney(i));
+			pq.add(p);
+		}
+		return pq;
+	}
+}
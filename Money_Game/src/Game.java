@@ -1,9 +1,20 @@
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.stream.IntStream;
 
 public class Game {
+	// Halving any double more than this many times always gives 0.
+	static final int MAX_HALVINGS = 2200;
+	// HALVES[j] = 2^-j. Every one of these is a normal double, so multiplying by one is exact (until the result is tiny).
+	private static final double[] HALVES = new double[1023];
+	static {
+		for (int j = 0; j < HALVES.length; j++)
+			HALVES[j] = Math.scalb(1.0, -j);
+	}
+	
 	private final long seed;	
 	
 	/**
@@ -16,8 +27,8 @@ public class Game {
 	 *  
 	 *  The second of these methods is my own algorithms
 	 *  <ul>
-	 *  	<li> {@linkplain #getWinner(PriorityQueue, int)} </li>
-	 *  	<li> {@linkplain #getMoney(PriorityQueue, Player, int)} </li>
+	 *  	<li> {@linkplain #getWinner(PriorityQueue, long)} </li>
+	 *  	<li> {@linkplain #getMoney(PriorityQueue, Player, long)} </li>
 	 *  </ul>
 	 *  
 	 *  The game has one simple rule: <br>
@@ -46,8 +57,8 @@ public class Game {
 	 *  
 	 *  The second of these methods is my own algorithms
 	 *  <ul>
-	 *  	<li> {@linkplain #getWinner(PriorityQueue, int)} </li>
-	 *  	<li> {@linkplain #getMoney(PriorityQueue, Player, int)} </li>
+	 *  	<li> {@linkplain #getWinner(PriorityQueue, long)} </li>
+	 *  	<li> {@linkplain #getMoney(PriorityQueue, Player, long)} </li>
 	 *  </ul>
 	 * 
 	 *  The game has one simple rule: <br>
@@ -68,6 +79,13 @@ public class Game {
 		this.seed = 1l;
 	}
 	
+	/**
+	 * @return The seed used in {@linkplain #genPlayerQueue(int)}
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
 	// MY METHODS OF DETERMINING WINNER + MONEY:
 	/**
 	 * This method will find the winning player in the provided heap after a given amount of rounds.
@@ -77,22 +95,32 @@ public class Game {
 	 * This method works under the simple observation that after each round, the players in the min heap shift
 	 * where the lowest player goes to the top, and every other player goes down one.
 	 * <p>
-	 * Time: O(p) worst <br>
-	 * Space: O(1) <br>
+	 * Time: O(p) expected <br>
+	 * Space: O(p) <br>
 	 * where p = number of players in the heap.
 	 * @param player_queue Your max heap of players.
 	 * @param rounds The number of rounds run
 	 * @return The winning player
-	 * @see #getMoney(PriorityQueue, Player, int)
+	 * @see #getMoney(PriorityQueue, Player, long)
+	 * @see #getWinners(PriorityQueue, long[])
 	 */
-	public Player getWinner(PriorityQueue<Player> player_queue, int rounds) {
+	public Player getWinner(PriorityQueue<Player> player_queue, long rounds) {
+		GameMetrics.QueryProbe probe = GameMetrics.startQuery("getWinner", player_queue.size(), rounds);
+		try {
+			return winner(player_queue, rounds);
+		} finally {
+			if (probe != null) probe.finish(GameMetrics.GET_WINNER, 0);
+		}
+	}
+	
+	private Player winner(PriorityQueue<Player> player_queue, long rounds) {
 		if (player_queue.size() == 0) return null;
 		if (rounds <= 0) return player_queue.peek();
 		/// number of players
 		int players = player_queue.size();
 		
 		// Winner is the player in v THIS v position in the queue.
-		int winner_index = (players - rounds % players) % players;
+		int winner_index = (int) ((players - rounds % players) % players);
 		/* 
 		 * ^^^ This single line is what makes getting an O(player) time possible.
 		 * The reason for this is that essentially each round shifts the person with the most amount of money to 
@@ -106,9 +134,33 @@ public class Game {
 		return getQueueIndex(player_queue, winner_index);
 	}
 	
+	/**
+	 * Find the winning player for many different round counts at once.
+	 * <p>
+	 * This takes a single snapshot of the heap and resolves every winner index in one pass, rather than
+	 * snapshotting the heap once per round count like calling {@linkplain #getWinner(PriorityQueue, long)} would.
+	 * <p>
+	 * Time: O(p log(k)) expected <br>
+	 * Space: O(p + k) <br>
+	 * where p = number of players in the heap, and k = number of round counts.
+	 * @param player_queue Your max heap of players.
+	 * @param rounds The round counts
+	 * @return The winning player for each round count
+	 */
+	public Player[] getWinners(PriorityQueue<Player> player_queue, long[] rounds) {
+		int players = player_queue.size();
+		if (players == 0) return new Player[rounds.length];
+		
+		int[] winner_indices = new int[rounds.length];
+		for (int i = 0; i < rounds.length; i++)
+			winner_indices[i] = rounds[i] <= 0 ? 0 : (int) ((players - rounds[i] % players) % players);
+		
+		return new PlayerSelect(player_queue).select(winner_indices);
+	}
+	
 	/**
 	 * This method runs the {@linkplain #getSum(PriorityQueue)} method, however if you already KNOW the sum,
-	 * please use {@linkplain #getMoney(Player, int, double, int)}, as it is much faster (especially for a
+	 * please use {@linkplain #getMoney(Player, int, double, long)}, as it is much faster (especially for a
 	 * large number of players, because re-running the sum takes O(p) best)
 	 * 
 	 * <p>
@@ -117,7 +169,7 @@ public class Game {
 	 * the player in last place. However an important insight to note is that you DONT need to manually sum
 	 * each players money every round; in fact, there is a very simple algorithm to find the final money after
 	 * n rounds. It goes as follows: <p>
-	 * If we had 10 player, 7 rounds, then from {@linkplain #getWinner(PriorityQueue, int)} we know that the winner
+	 * If we had 10 player, 7 rounds, then from {@linkplain #getWinner(PriorityQueue, long)} we know that the winner
 	 * is the 6th player from the bottom of the heap. This also means that there are 6 rounds where this player has
 	 * their money halved, and one round where they get half of all players money (ie. sum / 2). Thus we can calculate
 	 * this players final money to be <br>
@@ -136,25 +188,32 @@ public class Game {
 	 *    n = n - p
 	 * }
 	 * </pre>
-	 * And this loops until the sum from all the rounds has been calculated.
+	 * And this loops until the sum from all the rounds has been calculated (the loop itself is replaced by a
+	 * single formula, see {@linkplain #getMoney(Player, int, double, long)}).
 	 * 
 	 * <p>
 	 * Time to sum = O(p) best, worst, expected <br>
-	 * Time to calculate money = O(n / p) = O(k) worst <br>
+	 * Time to calculate money = O(1) <br>
 	 * Space = O(1) <br>
 	 * where p = number of players in the heap, and n = number of rounds run.
 	 * @param player_queue Your max heap of players.
-	 * @param winner The winning player gotten from {@linkplain #getWinner(PriorityQueue, int)}
+	 * @param winner The winning player gotten from {@linkplain #getWinner(PriorityQueue, long)}
 	 * @param rounds The number of rounds to be run
 	 * @return The amount money the winning player will have after the given number of rounds
-	 * @see #getMoney(Player, int, double, int)
-	 * @see #getWinner(PriorityQueue, int)
+	 * @see #getMoney(Player, int, double, long)
+	 * @see #getWinner(PriorityQueue, long)
 	 */
-	public double getMoney(PriorityQueue<Player> player_queue, Player winner, int rounds) {
-		double sum = getSum(player_queue);
-		int players = player_queue.size();
-		
-		return getMoney(winner, players, sum, rounds);
+	public double getMoney(PriorityQueue<Player> player_queue, Player winner, long rounds) {
+		GameMetrics.QueryProbe probe = GameMetrics.startQuery("getMoney", player_queue.size(), rounds);
+		try {
+			double sum = sum(player_queue);
+			int players = player_queue.size();
+			
+			return winnerMoney(winner, players, sum, rounds);
+		} finally {
+			// Summing the heap polls every player.
+			if (probe != null) probe.finish(GameMetrics.GET_MONEY, player_queue.size());
+		}
 	}
 	/**
 	 * This method 
@@ -164,7 +223,7 @@ public class Game {
 	 * the player in last place. However an important insight to note is that you DONT need to manually sum
 	 * each players money every round; in fact, there is a very simple algorithm to find the final money after
 	 * n rounds. It goes as follows: <p>
-	 * If we had 10 player, 7 rounds, then from {@linkplain #getWinner(PriorityQueue, int)} we know that the winner
+	 * If we had 10 player, 7 rounds, then from {@linkplain #getWinner(PriorityQueue, long)} we know that the winner
 	 * is the 6th player from the bottom of the heap. This also means that there are 6 rounds where this player has
 	 * their money halved, and one round where they get half of all players money (ie. sum / 2). Thus we can calculate
 	 * this players final money to be <br>
@@ -184,21 +243,36 @@ public class Game {
 	 * }
 	 * </pre>
 	 * And this loops until the sum from all the rounds has been calculated.
+	 * <p>
+	 * However we dont actually need the loop either. Each pass of the loop is {@code money = money * r + sum/2} where
+	 * {@code r = 1 / 2^p}, so after c passes (c = n / p) this is just a geometric series: <br>
+	 * <pre>
+	 * money = money * r^c + (sum / 2) * (1 - r^c) / (1 - r)
+	 * </pre>
+	 * which takes the same amount of time no matter how many rounds are run.
 	 * 
 	 * <p>
-	 * Time = O(n / p) = O(k) worst <br>
+	 * Time = O(1) <br>
 	 * Space = O(1) <br>
-	 * where p = number of players in the heap, and n = number of rounds run. We can always calculate p rounds at the
-	 * same time because we already made the number of rounds a multiple of p.
+	 * where p = number of players in the heap, and n = number of rounds run.
 	 * 
-	 * @param winner The winning player gotten from {@linkplain #getWinner(PriorityQueue, int)}
+	 * @param winner The winning player gotten from {@linkplain #getWinner(PriorityQueue, long)}
 	 * @param num_players The number of players in the heap
 	 * @param sum_money The sum of all players money
 	 * @param rounds The number of rounds to run
 	 * @return The amount money the winning player will have after the given number of rounds
-	 * @see #getMoney(PriorityQueue, Player, int)
+	 * @see #getMoney(PriorityQueue, Player, long)
 	 */
-	public double getMoney(Player winner, int num_players, double sum_money, int rounds) {
+	public double getMoney(Player winner, int num_players, double sum_money, long rounds) {
+		GameMetrics.QueryProbe probe = GameMetrics.startQuery("getMoney", num_players, rounds);
+		try {
+			return winnerMoney(winner, num_players, sum_money, rounds);
+		} finally {
+			if (probe != null) probe.finish(GameMetrics.GET_MONEY, 0);
+		}
+	}
+	
+	private static double winnerMoney(Player winner, int num_players, double sum_money, long rounds) {
 		double winner_money = winner.getMoney();
 		
 		// If the number of rounds is not a valid amount, return the amount of money the player already has.
@@ -212,29 +286,343 @@ public class Game {
 		 * 
 		 * We can use this fact to realize that if we KNEW the winning player, and their starting money, then we could
 		 * calculate their ending money using the knowledge that until the players position = 0 we divide their money, 
-		 * and that once it IS 0 we add half the sum, and repeat. This completely eliminates the need to check every single
-		 * players money each round, and allows you to compress the algorithm in a much faster way, which is shown below.
+		 * and that once it IS 0 we add half the sum, and repeat.
 		 */
 
-		// For any rounds = n*players + c, we do the following to make it so rounds = n * players.
-		// This makes it so we can calculate [player] number of rounds at the same time.
-		int leftover = rounds % num_players;
-		rounds -= leftover;
+		// For any rounds = c*players + k, we do the k leftover rounds first so the rest is a multiple of players.
+		int leftover = (int) (rounds % num_players);
+		long cycles = rounds / num_players;
 		
 		// If leftover = 0 then the player gets the sum of money added twice, so only execute this if it ISNT 0 (and also not somehow negative).
 		if (leftover > 0) {
 			// Dividing money by 2^n is the same as running n rounds where this specific player is not the one with the least amount of money
-			winner_money /= Math.pow(2, leftover);
+			winner_money = Math.scalb(winner_money, -Math.min(leftover, MAX_HALVINGS));
 			// Adding sum/2 is the same as running the round where this player IS the one with the least money.
 			winner_money += sum_money/2;
 		}
 		
-		// loop round/players times, repeating the above steps each time except with leftover -> players.
-		for(;rounds > 0; rounds -= num_players) {
-			winner_money /= Math.pow(2, num_players);
-			winner_money += sum_money/2;
+		return cycleMoney(winner_money, num_players, sum_money, cycles);
+	}
+	
+	/**
+	 * The money any player will have after a given number of rounds, not just the winner.
+	 * <p>
+	 * The player that starts at rank r (0 = most money) is in last place after {@code p - r - 1} rounds, so they get
+	 * the pot for the first time on round {@code p - r}, then every p rounds after that. Any rounds after their last
+	 * pot just halve their money.
+	 * <p>
+	 * Time = O(1)
+	 * 
+	 * @param money The money the player starts with
+	 * @param start_rank The rank of the player before any rounds are run
+	 * @param num_players The number of players in the heap
+	 * @param sum_money The sum of all players money
+	 * @param rounds The number of rounds to run
+	 * @return The amount of money the player will have after the given number of rounds
+	 * @see Standings
+	 */
+	static double getMoney(double money, int start_rank, int num_players, double sum_money, long rounds) {
+		if (rounds <= 0) return money;
+		
+		long first_pot = num_players - start_rank;
+		if (rounds < first_pot) return halve(money, rounds);
+		
+		money = halve(money, first_pot) + sum_money/2;
+		rounds -= first_pot;
+		money = cycleMoney(money, num_players, sum_money, rounds / num_players);
+		return halve(money, rounds % num_players);
+	}
+	
+	/**
+	 * The same as {@code Math.scalb(money, -halvings)}, except it goes straight to 0 when that is the answer.
+	 * {@code scalb} gets there one subnormal step at a time, which is many times slower than a normal multiply.
+	 * 
+	 * @param money Any amount of money
+	 * @param halvings The number of times to halve it (any number >= 0)
+	 * @return The money halved that many times
+	 */
+	static double halve(double money, long halvings) {
+		// Anything below 2^(MIN_EXPONENT - 53) (half the smallest double) rounds to 0.
+		if (halvings > MAX_HALVINGS || Math.getExponent(money) - halvings <= Double.MIN_EXPONENT - 54)
+			return Math.copySign(0.0, money);
+		return Math.scalb(money, -(int) halvings);
+	}
+	
+	/**
+	 * Run {@code cycles} passes of {@code money = money / 2^p + sum/2} at once using the geometric series.
+	 * 
+	 * @param money The money before the first pass
+	 * @param num_players The number of players (p)
+	 * @param sum_money The sum of all players money
+	 * @param cycles The number of passes to run
+	 * @return The money after all the passes
+	 */
+	static double cycleMoney(double money, int num_players, double sum_money, long cycles) {
+		if (cycles <= 0) return money;
+		// cycles * num_players <= rounds, so this cannot overflow. Past MAX_HALVINGS any double is already 0.
+		int halvings = (int) Math.min(cycles * num_players, MAX_HALVINGS);
+		double decay = Math.scalb(1.0, -halvings);                             // r^c
+		double ratio = Math.scalb(1.0, -Math.min(num_players, MAX_HALVINGS)); // r
+		return halve(money, halvings) + (sum_money/2) * (1 - decay) / (1 - ratio);
+	}
+	
+	/**
+	 * Fill an array with the money a player has after every round in a range, without running any rounds.
+	 * <p>
+	 * Logic: <br>
+	 * Between two pots the player only ever has their money halved, so if they had {@code m} just after their last
+	 * pot, then j rounds later they have {@code m * 2^-j}. So the money is worked out with
+	 * {@linkplain #getMoney(double, int, int, double, long)} once at the start of the range, and then each run of rounds
+	 * between two pots is a single loop of {@code out[i] = m * 2^-j} over a table of powers of two (which the JIT
+	 * turns into vector instructions). Only the rounds where they get the pot need any more work.
+	 * <p>
+	 * Time = O(l) <br>
+	 * Space = O(1) <br>
+	 * where l = length of the range.
+	 * 
+	 * @param money The money the player starts with
+	 * @param start_rank The rank of the player before any rounds are run
+	 * @param num_players The number of players
+	 * @param sum_money The sum of all players money
+	 * @param first_round The first round in the range
+	 * @param out The array to fill, where {@code out[offset + k]} is the money after round {@code first_round + k}
+	 * @param offset The first index to fill
+	 * @param length The number of rounds in the range
+	 */
+	static void getTrajectory(double money, int start_rank, int num_players, double sum_money, long first_round,
+			double[] out, int offset, int length) {
+		int i = offset;
+		int end = offset + length;
+		// No rounds have been run yet.
+		for (; i < end && first_round + (i - offset) <= 0; i++)
+			out[i] = money;
+		if (i == end) return;
+		
+		long round = first_round + (i - offset);
+		long first_pot = num_players - start_rank;
+		// The last round they got the pot (0 if never), and their money right after it.
+		long pot_round = 0;
+		double base = money;
+		if (round >= first_pot) {
+			pot_round = first_pot + (round - first_pot) / num_players * num_players;
+			base = getMoney(money, start_rank, num_players, sum_money, pot_round);
+		}
+		long next_pot = pot_round == 0 ? first_pot : pot_round + num_players;
+		
+		while (true) {
+			int run = (int) Math.min(end - i, next_pot - round);
+			fillHalvings(base, round - pot_round, out, i, run);
+			i += run;
+			if (i == end) return;
+			round = next_pot;
+			
+			base = Math.scalb(base, -(int) Math.min(next_pot - pot_round, MAX_HALVINGS)) + sum_money/2;
+			pot_round = next_pot;
+			next_pot += num_players;
 		}
-		return winner_money;
+	}
+	
+	// out[from + k] = base halved (halvings + k) times, for k in [0, length)
+	private static void fillHalvings(double base, long halvings, double[] out, int from, int length) {
+		int i = from;
+		int end = from + length;
+		if (halvings < HALVES.length) {
+			int n = (int) Math.min(length, HALVES.length - halvings);
+			int h = (int) halvings;
+			for (int k = 0; k < n; k++)
+				out[i + k] = base * HALVES[h + k];
+			i += n;
+			halvings += n;
+		}
+		// Past 2^-1022 the powers of two are no longer normal doubles, so fall back to scalb until it hits 0.
+		for (; i < end; i++, halvings++) {
+			out[i] = Math.scalb(base, -(int) Math.min(halvings, MAX_HALVINGS));
+			if (out[i] == 0) {
+				Arrays.fill(out, i + 1, end, 0);
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Build the standings of every player in the heap, which can then give the position and money of any player
+	 * after any number of rounds without running the brute force method.
+	 * <p>
+	 * Time: O(p log(p)) once, then O(p) for the full standings or O(k) for the top k players. <br>
+	 * where p = number of players in the heap.
+	 * 
+	 * @param player_queue Your max heap of players.
+	 * @return The standings of the players
+	 * @see Standings
+	 */
+	public Standings getStandings(PriorityQueue<Player> player_queue) {
+		return new Standings(player_queue);
+	}
+	
+	/**
+	 * Find the winning player after a given amount of rounds under any rules, ie) giving a different fraction or
+	 * splitting the pot between the poorest few players.
+	 * <p>
+	 * Logic: <br>
+	 * Once the poorest k players get enough of the pot to pass everyone else, every round moves the last k up to the
+	 * top just like {@linkplain #getWinner(PriorityQueue, long)} moves the last one, so the winner is the player at
+	 * {@linkplain GameRules#getStartRank(int, int, long)} in the heap. If the starting money is too far apart for that
+	 * (see {@linkplain GameRules#rotates(int, double, double, double)}), the first few rounds are brute forced with a
+	 * {@linkplain RulesRoundEngine} until it is, which is never more than the rounds asked for.
+	 * <p>
+	 * Time: O(p) expected if the game rotates from the start, otherwise O(p log(p) + s * p) <br>
+	 * Space: O(p) <br>
+	 * where p = number of players in the heap, and s = number of rounds before the game rotates.
+	 * 
+	 * @param player_queue Your max heap of players.
+	 * @param rounds The number of rounds run
+	 * @param rules The rules of the game
+	 * @return The winning player
+	 * @throws IllegalArgumentException If there are more recipients than players
+	 * @see #getMoney(PriorityQueue, Player, long, GameRules)
+	 */
+	public Player getWinner(PriorityQueue<Player> player_queue, long rounds, GameRules rules) {
+		if (rules.isClassic()) return getWinner(player_queue, rounds);
+		if (player_queue.size() == 0) return null;
+		if (rounds <= 0) return player_queue.peek();
+		int players = player_queue.size();
+		
+		if (!Double.isNaN(rotatingSum(player_queue, rules)))
+			return getQueueIndex(player_queue, rules.getStartRank(0, players, rounds));
+		RulesRoundEngine engine = settle(player_queue, rounds, rules);
+		return engine.getPlayer(rules.getStartRank(0, players, rounds - engine.getRound()));
+	}
+	
+	/**
+	 * The money the winner will have after a given number of rounds under any rules, see
+	 * {@linkplain #getWinner(PriorityQueue, long, GameRules)} and {@linkplain GameRules#getMoney(double, int, int, double, long)}.
+	 * <p>
+	 * Time: O(p + k) if the game rotates from the start, otherwise O(p log(p) + s * p) <br>
+	 * Space: O(1) if the game rotates from the start, otherwise O(p) <br>
+	 * where p = number of players in the heap, k = number of recipients, and s = number of rounds before the game
+	 * rotates.
+	 * 
+	 * @param player_queue Your max heap of players.
+	 * @param winner The winning player gotten from {@linkplain #getWinner(PriorityQueue, long, GameRules)}
+	 * @param rounds The number of rounds to be run
+	 * @param rules The rules of the game
+	 * @return The amount money the winning player will have after the given number of rounds
+	 * @throws IllegalArgumentException If there are more recipients than players
+	 */
+	public double getMoney(PriorityQueue<Player> player_queue, Player winner, long rounds, GameRules rules) {
+		if (rules.isClassic()) return getMoney(player_queue, winner, rounds);
+		if (rounds <= 0) return winner.getMoney();
+		int players = player_queue.size();
+		
+		double sum = rotatingSum(player_queue, rules);
+		if (!Double.isNaN(sum)) {
+			int rank = rules.getStartRank(0, players, rounds);
+			return rules.getMoney(winner.getMoney(), rank, players, sum, rounds);
+		}
+		RulesRoundEngine engine = settle(player_queue, rounds, rules);
+		long left = rounds - engine.getRound();
+		int rank = rules.getStartRank(0, players, left);
+		return rules.getMoney(engine.getMoney(rank), rank, players, engine.getSum(), left);
+	}
+	
+	// The sum of the heap if the formulas in 'rules' are right for it from the start, otherwise NaN. One pass over the heap.
+	private static double rotatingSum(PriorityQueue<Player> player_queue, GameRules rules) {
+		double richest = Double.NEGATIVE_INFINITY;
+		double poorest = Double.POSITIVE_INFINITY;
+		CompensatedSum sum = new CompensatedSum();
+		for (Player p : player_queue) {
+			richest = Math.max(richest, p.getMoney());
+			poorest = Math.min(poorest, p.getMoney());
+			sum.add(p.getMoney());
+		}
+		return rules.rotates(player_queue.size(), richest, poorest, sum.get()) ? sum.get() : Double.NaN;
+	}
+	
+	// Brute force the heap until the formulas in 'rules' are right (or all the rounds have been run).
+	private static RulesRoundEngine settle(PriorityQueue<Player> player_queue, long rounds, GameRules rules) {
+		RulesRoundEngine engine = new RulesRoundEngine(player_queue, rules);
+		while (engine.getRound() < rounds && !engine.rotates())
+			engine.runRound();
+		return engine;
+	}
+	
+	// THE SAME METHODS ON A PLAYER TABLE:
+	// A PlayerTable is always sorted, so there is no need to find anyone or clone a heap.
+	/**
+	 * Find the winning player in the table after a given number of rounds (from the tables current round).
+	 * <p>
+	 * The table is already sorted, so this is just {@linkplain #getWinner(PriorityQueue, long)} without having to
+	 * find the player at the winning index.
+	 * <p>
+	 * Time: O(1)
+	 * 
+	 * @param table The players
+	 * @param rounds The number of rounds run
+	 * @return The winning player, or null if there are no players
+	 */
+	public Player getWinner(PlayerTable table, long rounds) {
+		int players = table.size();
+		if (players == 0) return null;
+		if (rounds <= 0) return table.getPlayer(0);
+		return table.getPlayer((int) ((players - rounds % players) % players));
+	}
+	
+	/**
+	 * The money the winning player will have after the given number of rounds.
+	 * <p>
+	 * Time: O(p) (for the sum, use {@linkplain #getMoney(Player, int, double, long)} if you already know it)
+	 * 
+	 * @param table The players
+	 * @param rounds The number of rounds run
+	 * @return The amount of money the winning player will have after the given number of rounds
+	 * @see #getMoney(PriorityQueue, Player, long)
+	 */
+	public double getMoney(PlayerTable table, long rounds) {
+		Player winner = getWinner(table, rounds);
+		if (winner == null) return 0;
+		return getMoney(winner, table.size(), table.getSum(), rounds);
+	}
+	
+	/**
+	 * The money any player in the table will have after the given number of rounds.
+	 * <p>
+	 * Time: O(1) with the sum, see {@linkplain #getMoney(double, int, int, double, long)}
+	 * 
+	 * @param table The players
+	 * @param position The current position of the player (0 = most money)
+	 * @param sum_money The sum of all players money, from {@linkplain #getSum(PlayerTable)}
+	 * @param rounds The number of rounds run
+	 * @return The amount of money the player will have after the given number of rounds
+	 */
+	public double getMoney(PlayerTable table, int position, double sum_money, long rounds) {
+		return getMoney(table.getMoney(position), position, table.size(), sum_money, rounds);
+	}
+	
+	/**
+	 * Acquire the sum of player money in the table.
+	 * <p>
+	 * Time: O(p), a single pass over a {@code double[]} rather than emptying a copy of the heap.
+	 * 
+	 * @param table The players
+	 * @return The sum of money for all players
+	 */
+	public double getSum(PlayerTable table) {
+		return table.getSum();
+	}
+	
+	/**
+	 * Manually simulate a given number of rounds on the table, in place. Gives the exact same results as
+	 * {@linkplain #runNRounds(PriorityQueue, int)} (which just does this on a table built from the heap).
+	 * <p>
+	 * Time: O(n * p) <br>
+	 * Space: O(1) <br>
+	 * where p = number of players, and n = number of rounds run.
+	 * 
+	 * @param table The players
+	 * @param rounds Number of rounds to be run
+	 */
+	public void runNRounds(PlayerTable table, long rounds) {
+		table.runNRounds(rounds);
 	}
 	
 	// This method is essentially redundant. In a real application we would actually calculate the sum of the 
@@ -245,7 +633,7 @@ public class Game {
 	 * Acquire the sum of player money in the heap.
 	 * <p>
 	 * It should be noted that in a real implementation, we would completely remove this and instead calculate the
-	 * sum while getting the player in {@linkplain #getWinner(PriorityQueue, int)}. That is, instead of ending 
+	 * sum while getting the player in {@linkplain #getWinner(PriorityQueue, long)}. That is, instead of ending 
 	 * the {@code while} loop early as SOON as we find the winner, we would instead continue the {@code while} 
 	 * loop until all players have been seen, summing each of their money and saving it to a single {@code sum}
 	 * variable. Doing this would increase the time from O(p) worst to O(p) web , but thats 
@@ -258,12 +646,22 @@ public class Game {
 	 * @return The sum of money for all players
 	 */
 	public double getSum(PriorityQueue<Player> player_queue) {
+		GameMetrics.QueryProbe probe = GameMetrics.startQuery("getSum", player_queue.size(), 0);
+		try {
+			return sum(player_queue);
+		} finally {
+			if (probe != null) probe.finish(GameMetrics.GET_SUM, player_queue.size());
+		}
+	}
+	
+	private static double sum(PriorityQueue<Player> player_queue) {
 		// Clones the current priority queue so it is not harmed.
 		PriorityQueue<Player> pq_clone = new PriorityQueue<Player>(player_queue);
-		double sum = 0;
+		// Summed without rounding errors, so the sum itself does not add to the drift.
+		CompensatedSum sum = new CompensatedSum();
 		while(!pq_clone.isEmpty())
-			sum += pq_clone.poll().getMoney();
-		return sum;
+			sum.add(pq_clone.poll().getMoney());
+		return sum.get();
 	}
 	
 	// BRUTE FORCE METHOD
@@ -281,6 +679,13 @@ public class Game {
 	 * the players money approach the Double.minValue() [You can see this by exporting the queues contents to a
 	 * text file after running it for a load of rounds], then eventually java cant properly divide said values by
 	 * two, and they end up moving up or down in the queue due to floating point errors.
+	 * <p>
+	 * Once that happens the money stops changing from one lap of the players to the next, so the rounds after the
+	 * state starts repeating are skipped, see {@linkplain PlayerTable#runNRounds(long)}.
+	 * <p>
+	 * Time: O(n * p), but never much more than a few thousand rounds <br>
+	 * Space: O(p) <br>
+	 * where p = number of players in the heap, and n = number of rounds run. See {@linkplain PlayerTable}.
 	 * 
 	 * @param player_queue The heap of players
 	 * @param rounds Number of rounds to be run
@@ -290,73 +695,183 @@ public class Game {
 		if (player_queue.size() == 0) return null;
 		if (rounds <= 0) return null;
 		
-		PriorityQueue<Player> pq_clone = new PriorityQueue<Player>(player_queue);
+		GameMetrics.RunProbe probe = GameMetrics.startRun("runNRounds", GameMetrics.RUN_N_ROUNDS, player_queue);
+		// Keeps the players in a single sorted table rather than building two new heaps every round.
+		PlayerTable table = PlayerTable.fromQueue(player_queue);
+		table.runNRounds(rounds);
+		PriorityQueue<Player> pq = table.toQueue();
+		if (probe != null) probe.finish(rounds, table);
+		return pq;
+	}
+	
+	/**
+	 * Simulate every single round up to and including round n, summing the pot without losing money to rounding.
+	 * <p>
+	 * This is the same as {@linkplain #runNRounds(PriorityQueue, int)}, except the pot is summed with
+	 * {@linkplain PlayerTable#setCompensated(boolean)}, so the sum of all players money barely moves. The players
+	 * still bottom out the same way, so this does not fix the brute force method for a high number of players and
+	 * rounds, see {@linkplain #runNRoundsExact(PriorityQueue, int)} for that.
+	 * <p>
+	 * Time: O(n * p) <br>
+	 * Space: O(p) <br>
+	 * where p = number of players in the heap, and n = number of rounds run.
+	 * 
+	 * @param player_queue The heap of players
+	 * @param rounds Number of rounds to be run
+	 * @return The updated heap
+	 */
+	public PriorityQueue<Player> runNRoundsCompensated(PriorityQueue<Player> player_queue, int rounds) {
+		if (player_queue.size() == 0) return null;
+		if (rounds <= 0) return null;
 		
-		for(long i = 0; i < rounds; i++) {
-			// Run the current round
-			pq_clone = runRound(pq_clone);
-		}
-		return pq_clone;
+		GameMetrics.RunProbe probe = GameMetrics.startRun("runNRoundsCompensated", GameMetrics.RUN_N_ROUNDS_COMPENSATED, player_queue);
+		PlayerTable table = PlayerTable.fromQueue(player_queue);
+		table.setCompensated(true);
+		table.runNRounds(rounds);
+		PriorityQueue<Player> pq = table.toQueue();
+		if (probe != null) probe.finish(rounds, table);
+		return pq;
+	}
+	
+	/**
+	 * Simulate every single round up to and including round n, without any floating point errors.
+	 * <p>
+	 * Unlike {@linkplain #runNRounds(PriorityQueue, int)} this does not break for a high number of players and
+	 * rounds, as every players money is stored as an exact integer with a power of two shared by every player.
+	 * The returned engine has the exact order of the players, and each players money rounded to a {@code double}.
+	 * <p>
+	 * Time: O(p log(p) + n) <br>
+	 * Space: O(p + n) <br>
+	 * where p = number of players in the heap, and n = number of rounds run. See {@linkplain ExactRoundEngine}.
+	 * 
+	 * @param player_queue The heap of players
+	 * @param rounds Number of rounds to be run
+	 * @return The simulation after the given number of rounds
+	 */
+	public ExactRoundEngine runNRoundsExact(PriorityQueue<Player> player_queue, int rounds) {
+		ExactRoundEngine engine = new ExactRoundEngine(player_queue);
+		engine.runNRounds(rounds);
+		return engine;
+	}
+	
+	/**
+	 * Simulate every single round up to and including round n, without halving every player every round.
+	 * <p>
+	 * Rather than halving everyone, every player keeps the round their money was last written and is scaled when
+	 * asked for, so a round only touches the player in last. This gives the same results as
+	 * {@linkplain #getWinner(PriorityQueue, long)} and {@linkplain #getMoney(PriorityQueue, Player, long)}, and a
+	 * million players for a million rounds takes milliseconds.
+	 * <p>
+	 * Time: O(min(n, p)) (after O(p log(p)) to sort the players) <br>
+	 * Space: O(p) <br>
+	 * where p = number of players in the heap, and n = number of rounds run. See {@linkplain LazyRoundEngine}.
+	 * 
+	 * @param player_queue The heap of players
+	 * @param rounds Number of rounds to be run
+	 * @return The simulation after the given number of rounds
+	 */
+	public LazyRoundEngine runNRoundsLazy(PriorityQueue<Player> player_queue, long rounds) {
+		LazyRoundEngine engine = new LazyRoundEngine(player_queue);
+		engine.runNRounds(rounds);
+		return engine;
+	}
+	
+	/**
+	 * Simulate every single round up to and including round n under any rules, see {@linkplain RulesRoundEngine}.
+	 * This is the brute force method that {@linkplain #getWinner(PriorityQueue, long, GameRules)} and
+	 * {@linkplain #getMoney(PriorityQueue, Player, long, GameRules)} are checked against.
+	 * <p>
+	 * Time: O(n * p) <br>
+	 * Space: O(p) <br>
+	 * where p = number of players in the heap, and n = number of rounds run.
+	 * 
+	 * @param player_queue The player heap. Neither the heap nor the players are changed.
+	 * @param rounds Number of rounds to be run
+	 * @param rules The rules of the game
+	 * @return The simulation after the given number of rounds
+	 * @throws IllegalArgumentException If there are more recipients than players
+	 */
+	public RulesRoundEngine runNRounds(PriorityQueue<Player> player_queue, long rounds, GameRules rules) {
+		RulesRoundEngine engine = new RulesRoundEngine(player_queue, rules);
+		engine.runNRounds(rounds);
+		return engine;
+	}
+	
+	/**
+	 * Simulate every single round up to and including round n, using every core.
+	 * <p>
+	 * This is only worth it for a very large number of players (more than {@value ParallelRoundEngine#CHUNK_SIZE}),
+	 * and has the same accuracy problems as {@linkplain #runNRounds(PriorityQueue, int)}.
+	 * <p>
+	 * Time: O(n * p / t) <br>
+	 * Space: O(p) <br>
+	 * where p = number of players in the heap, n = number of rounds run, and t = number of threads.
+	 * See {@linkplain ParallelRoundEngine}.
+	 * 
+	 * @param player_queue The heap of players
+	 * @param rounds Number of rounds to be run
+	 * @return The updated heap
+	 */
+	public PriorityQueue<Player> runNRoundsParallel(PriorityQueue<Player> player_queue, int rounds) {
+		if (player_queue.size() == 0) return null;
+		if (rounds <= 0) return null;
+		
+		ParallelRoundEngine engine = new ParallelRoundEngine(player_queue);
+		engine.runNRounds(rounds);
+		return engine.toQueue();
 	}
 	
 	// Run a single round.
 	/**
 	 * Simulate a single round of the game.
+	 * <p>
+	 * If you are running more than one round, please use {@linkplain #runNRounds(PriorityQueue, int)} or a
+	 * {@linkplain PlayerTable} directly, as this has to sort the players again every time it is called.
 	 * 
 	 * @param player_queue The player heap
 	 * @return The updated player heap.
 	 */
 	public PriorityQueue<Player> runRound(PriorityQueue<Player> player_queue) {
-		PriorityQueue<Player> updated_queue = new PriorityQueue<Player>(new PlayerComp());
-		PriorityQueue<Player> old_queue = new PriorityQueue<Player>(player_queue);
-		
-		double money = 0;
-		double pmoney = 0;
-		
-		// Iterate over pq
-		while(! old_queue.isEmpty() ) {
-			// Get current player and divide their money by half
-			Player p = old_queue.poll();
-			pmoney = p.getMoney() / 2;
-			p.remMoney(pmoney);
-			money += pmoney;
-			
-			// If the player is last in the queue (ie. has the least money) add the money sum to them.
-			// Note: although the question says we DONT divide the player with the least amount of money by 1/2,
-			// its ok if we do so because the money is re-added here.
-			if( old_queue.size() == 0) {
-				p.addMoney(money);
-				money = 0;
-			}
-			// Add each player to a new updated queue so we can run another round on it.
-			updated_queue.add(p);
-		}
-		
-		return updated_queue;
+		// Every player gives half their money to the player in last. Note: although the question says we DONT
+		// divide the player with the least amount of money by 1/2, its ok if we do so because the money is re-added.
+		GameMetrics.RunProbe probe = GameMetrics.startRun("runRound", GameMetrics.RUN_ROUND, player_queue);
+		PlayerTable table = PlayerTable.fromQueue(player_queue);
+		table.runRound();
+		PriorityQueue<Player> pq = table.toQueue();
+		if (probe != null) probe.finish(1, table);
+		return pq;
+	}
+	
+	/**
+	 * A feed of a summary of every round, rather than a copy of the heap after every round like calling
+	 * {@linkplain #runRound(PriorityQueue)} over and over. See {@linkplain RoundFeed}.
+	 * 
+	 * @param player_queue The player heap. Neither the heap nor the players are changed.
+	 * @param rounds The number of rounds in the feed
+	 * @param track_sum Whether to add up the sum of all players money after every round
+	 * @return The feed, which only runs the rounds as they are asked for
+	 */
+	public RoundFeed streamRounds(PriorityQueue<Player> player_queue, long rounds, boolean track_sum) {
+		return new RoundFeed(PlayerTable.fromQueue(player_queue), rounds, track_sum);
 	}
 	
 	// Simple method to return the player at a given index without interfering with queue
 	/**
 	 * Obtain the player at a specified index of a heap without wrecking said heap.
+	 * <p>
+	 * Time: O(p) expected, see {@linkplain PlayerSelect} <br>
+	 * Space: O(p) <br>
+	 * where p = number of players in the heap.
 	 * 
 	 * @param player_queue The player heap
 	 * @param index Index you want to return
 	 * @return The player at the specified index
 	 */
 	public Player getQueueIndex(PriorityQueue<Player> player_queue, int index) {
-		PriorityQueue<Player> pq_clone = new PriorityQueue<Player>(player_queue);
-		
-		int i = 0;
-		// iterate over the heap.
-		while( !pq_clone.isEmpty() ) {
-			// If the current index == index, return the winner.
-			if (i++ == index)
-				return pq_clone.poll();
-			pq_clone.poll();
-		}
 		// If there is no player at the specified index, return null;
-		return null;
+		if (index < 0 || index >= player_queue.size()) return null;
 		
+		return new PlayerSelect(player_queue).select(index);
 	}
 	
 	// This generates a priority queue that is ALWAYS THE SAME.
@@ -372,25 +887,143 @@ public class Game {
 	 * @return A max heap of players based on the amount of money they have.
 	 */
 	public PriorityQueue<Player> genPlayerQueue(int num_players) {
+		PriorityQueue<Player> pq = new PriorityQueue<>(new PlayerComp());
+		PrimitiveIterator.OfInt money = genPlayerMoney(num_players);
+		for (int i = 0; i < num_players; i++)
+			pq.add( new Player(i, money.nextInt()));
+		GameMetrics.addHeapOperations(num_players);
+		return pq;
+	}
+	
+	/**
+	 * Generate a heap with 'random' money values for all the players inside, using every core. <br>
+	 * Just like {@linkplain #genPlayerQueue(int)} this will always return the same queue for the same seed (no matter
+	 * how many threads are used), and no two players have the same amount of money. However it is a different queue
+	 * to {@linkplain #genPlayerQueue(int)}, see {@linkplain RosterGenerator}.
+	 * <p>
+	 * Time: O(p log(p) / t) <br>
+	 * where p = number of players, and t = number of threads.
+	 * 
+	 * @param num_players The number of players you want the heap to have
+	 * @return A max heap of players based on the amount of money they have.
+	 */
+	public PriorityQueue<Player> genPlayerQueueParallel(int num_players) {
+		int[] money = new RosterGenerator(seed).genMoney(num_players);
+		// Sort (money, id) pairs packed into a long, which is much faster than sorting the players themselves.
+		long[] keys = new long[num_players];
+		IntStream.range(0, num_players).parallel().forEach(i -> keys[i] = ((long) money[i] << 32) | i);
+		Arrays.parallelSort(keys);
+		
+		PriorityQueue<Player> pq = new PriorityQueue<>(Math.max(1, num_players), new PlayerComp());
+		// Adding from richest to poorest means every add is O(1), as no player ever has to move up the heap.
+		for (int i = num_players - 1; i >= 0; i--)
+			pq.add( new Player((int) keys[i], keys[i] >>> 32));
+		GameMetrics.addHeapOperations(num_players);
+		return pq;
+	}
+	
+	/**
+	 * Generate the same players as {@linkplain #genPlayerQueue(int)}, but as a {@linkplain PlayerTable} rather
+	 * than a heap. This takes around 12 bytes a player rather than 100.
+	 * 
+	 * @param num_players The number of players you want the table to have
+	 * @return The players, sorted from the most to the least money
+	 */
+	public PlayerTable genPlayerTable(int num_players) {
+		int[] ids = new int[num_players];
+		double[] money = new double[num_players];
+		PrimitiveIterator.OfInt gen = genPlayerMoney(num_players);
+		for (int i = 0; i < num_players; i++) {
+			ids[i] = i;
+			money[i] = gen.nextInt();
+		}
+		return new PlayerTable(ids, money);
+	}
+	
+	/**
+	 * Generate the same players as {@linkplain #genPlayerTable(int)} into a table that already exists, reusing its
+	 * arrays so that nothing is allocated. This is for running lots of games one after the other, see
+	 * {@linkplain MonteCarlo}.
+	 * 
+	 * @param table A table with the number of players wanted, that was not made from a heap
+	 * @param seen A buffer of at least {@linkplain #seenLength(int)} longs, see {@linkplain #genPlayerMoney(int, long[])}
+	 */
+	void genPlayerTable(PlayerTable table, long[] seen) {
+		table.load(genPlayerMoney(table.size(), seen));
+	}
+	
+	/**
+	 * @param num_players The number of players
+	 * @return The number of longs needed to remember which amounts of money have been used
+	 */
+	static int seenLength(int num_players) {
+		return (int) ((10L * num_players + 63) / 64);
+	}
+	
+	/**
+	 * Generate the same players as {@linkplain #genPlayerQueueParallel(int)}, but as a {@linkplain PlayerTable}.
+	 * 
+	 * @param num_players The number of players you want the table to have
+	 * @return The players, sorted from the most to the least money
+	 */
+	public PlayerTable genPlayerTableParallel(int num_players) {
+		int[] gen = new RosterGenerator(seed).genMoney(num_players);
+		int[] ids = new int[num_players];
+		double[] money = new double[num_players];
+		IntStream.range(0, num_players).parallel().forEach(i -> {
+			ids[i] = i;
+			money[i] = gen[i];
+		});
+		return new PlayerTable(ids, money);
+	}
+	
+	/**
+	 * The money of every player in {@linkplain #genPlayerQueue(int)}, in the order they are generated. So the i'th
+	 * value is the money of "Player i". This lets a roster be generated without having every player in memory.
+	 * 
+	 * @param num_players The number of players
+	 * @return The money of each player, one at a time
+	 */
+	PrimitiveIterator.OfInt genPlayerMoney(int num_players) {
+		return genPlayerMoney(num_players, new long[seenLength(num_players)]);
+	}
+	
+	/**
+	 * Same as {@linkplain #genPlayerMoney(int)}, using the given buffer to remember which amounts have been used.
+	 * 
+	 * @param num_players The number of players
+	 * @param seen A buffer of at least {@linkplain #seenLength(int)} longs. Whatever is in it is cleared.
+	 * @return The money of each player, one at a time
+	 */
+	PrimitiveIterator.OfInt genPlayerMoney(int num_players, long[] seen) {
 		// Use random numbers to generate values for player money. Set seed
 		Random rnd = new Random();
 		rnd.setSeed(seed);
 		
-		PriorityQueue<Player> pq = new PriorityQueue<>(new PlayerComp());
 		// The reason I purposefully prevent players from having the same amount of money is that
 		// it seems to make both my method and the brute force method wildly inconsistent between runs,
 		// as the heap will order two players differently between runs if they have the same money.
-		Map<Integer, Boolean> seen = new HashMap<>();
-		Integer money = 0;
-		for (int i = 0; i < num_players; i++) {
-			money = rnd.nextInt(0, 10 * num_players);
+		// One bit for every possible amount of money.
+		Arrays.fill(seen, 0, seenLength(num_players), 0);
+		return new PrimitiveIterator.OfInt() {
+			private int i = 0;
 			
-			while(seen.getOrDefault(money, false))
-				money = rnd.nextInt(0, 10 * num_players);
-			seen.put(money, true);
+			@Override
+			public boolean hasNext() {
+				return i < num_players;
+			}
 			
-			pq.add( new Player("Player " + i, money));
-		}
-		return pq;
+			@Override
+			public int nextInt() {
+				if (!hasNext()) throw new NoSuchElementException();
+				i++;
+				int money = rnd.nextInt(0, 10 * num_players);
+				
+				while((seen[money >>> 6] & (1L << money)) != 0)
+					money = rnd.nextInt(0, 10 * num_players);
+				seen[money >>> 6] |= 1L << money;
+				return money;
+			}
+		};
 	}
 }
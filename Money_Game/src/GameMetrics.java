@@ -0,0 +1,330 @@
+import java.lang.management.ManagementFactory;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.EventType;
+
+/**
+ * Counters for where the time goes in {@linkplain Game}: the number of rounds simulated, heap operations, bytes
+ * allocated per round, the latency of every method, and how far the sum of money drifts in the brute force method.
+ * <p>
+ * Everything is off unless {@linkplain #setEnabled(boolean)} is called (or the JVM is started with
+ * {@code -Dmoney.metrics=true}). When off, and nothing is recording, every method costs one {@code volatile} read and
+ * one check of whether the event is recorded, and nothing is allocated, so it can always be left in. The same
+ * numbers are also sent to JDK Flight Recorder as {@linkplain SimulationEvent} and {@linkplain QueryEvent} whenever
+ * a recording is running, whether the counters are on or not.
+ * <p>
+ * All the counters are {@code LongAdder}s, so any number of threads can update them without fighting over them.
+ */
+public final class GameMetrics {
+	private static volatile boolean enabled = Boolean.getBoolean("money.metrics");
+
+	private static final LongAdder rounds = new LongAdder();
+	private static final LongAdder skipped_rounds = new LongAdder();
+	private static final LongAdder heap_operations = new LongAdder();
+	private static final LongAdder allocated_bytes = new LongAdder();
+	private static final DoubleAdder total_drift = new DoubleAdder();
+	private static final DoubleAccumulator max_drift = new DoubleAccumulator(Math::max, 0);
+
+	/** Latency of {@linkplain Game#runRound(PriorityQueue)} */
+	public static final Latency RUN_ROUND = new Latency("runRound");
+	/** Latency of {@linkplain Game#runNRounds(PriorityQueue, int)} */
+	public static final Latency RUN_N_ROUNDS = new Latency("runNRounds");
+	/** Latency of {@linkplain Game#runNRoundsCompensated(PriorityQueue, int)} */
+	public static final Latency RUN_N_ROUNDS_COMPENSATED = new Latency("runNRoundsCompensated");
+	/** Latency of {@linkplain Game#getWinner(PriorityQueue, long)} */
+	public static final Latency GET_WINNER = new Latency("getWinner");
+	/** Latency of both {@code Game.getMoney} methods */
+	public static final Latency GET_MONEY = new Latency("getMoney");
+	/** Latency of {@linkplain Game#getSum(PriorityQueue)} */
+	public static final Latency GET_SUM = new Latency("getSum");
+	private static final Latency[] LATENCIES = { RUN_ROUND, RUN_N_ROUNDS, RUN_N_ROUNDS_COMPENSATED, GET_WINNER, GET_MONEY,
+			GET_SUM };
+
+	private static final com.sun.management.ThreadMXBean THREADS = threads();
+	// Whether a recording wants the events, checked without making an event
+	private static final EventType SIMULATION_EVENT = EventType.getEventType(SimulationEvent.class);
+	private static final EventType QUERY_EVENT = EventType.getEventType(QueryEvent.class);
+
+	private GameMetrics() {
+	}
+
+	/**
+	 * @return Whether the counters are on
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @param enabled Whether the counters should be on
+	 */
+	public static void setEnabled(boolean enabled) {
+		GameMetrics.enabled = enabled;
+	}
+
+	/**
+	 * Set every counter back to 0.
+	 */
+	public static void reset() {
+		rounds.reset();
+		skipped_rounds.reset();
+		heap_operations.reset();
+		allocated_bytes.reset();
+		total_drift.reset();
+		max_drift.reset();
+		for (Latency latency : LATENCIES)
+			latency.reset();
+	}
+
+	/**
+	 * @return The number of rounds simulated by the brute force method
+	 */
+	public static long getRounds() {
+		return rounds.sum();
+	}
+
+	/**
+	 * @return The number of those rounds that were skipped because the state was repeating
+	 */
+	public static long getSkippedRounds() {
+		return skipped_rounds.sum();
+	}
+
+	/**
+	 * @return The number of adds and polls on a {@code PriorityQueue}
+	 */
+	public static long getHeapOperations() {
+		return heap_operations.sum();
+	}
+
+	/**
+	 * @return The average number of bytes allocated per round actually run (not counting the rounds that were skipped
+	 *         because the state was repeating), or NaN if it cannot be measured
+	 */
+	public static double getBytesPerRound() {
+		long r = rounds.sum() - skipped_rounds.sum();
+		return THREADS == null || r == 0 ? Double.NaN : (double) allocated_bytes.sum() / r;
+	}
+
+	/**
+	 * @return The biggest change in the sum of money over a single call to the brute force method
+	 */
+	public static double getMaxDrift() {
+		return max_drift.get();
+	}
+
+	/**
+	 * @return The total change in the sum of money over every call to the brute force method
+	 */
+	public static double getTotalDrift() {
+		return total_drift.sum();
+	}
+
+	/**
+	 * @return Every counter, one per line
+	 */
+	public static String report() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Rounds simulated  = %d (%d skipped)%n", getRounds(), getSkippedRounds()));
+		sb.append(String.format("Heap operations   = %d%n", getHeapOperations()));
+		sb.append(String.format("Bytes per round   = %.1f%n", getBytesPerRound()));
+		sb.append(String.format("Drift in the sum  = %s max, %s total%n", getMaxDrift(), getTotalDrift()));
+		for (Latency latency : LATENCIES)
+			sb.append(String.format("%-17s = %d calls, %.5f ms average, %.5f ms max%n", latency.getName(),
+					latency.getCalls(), latency.getAverageNanos() / 1e6, latency.getMaxNanos() / 1e6));
+		return sb.toString();
+	}
+
+	// Add heap operations without starting a probe (ie. generating a heap).
+	static void addHeapOperations(long count) {
+		if (enabled) heap_operations.add(count);
+	}
+
+	/**
+	 * Start timing a call to the brute force method.
+	 *
+	 * @param method The name of the method
+	 * @param latency The latency to add the time to
+	 * @param player_queue The heap the rounds are run on
+	 * @return The probe to finish once the rounds are run, or null if the counters are off and nothing is recording.
+	 */
+	static RunProbe startRun(String method, Latency latency, PriorityQueue<Player> player_queue) {
+		if (!enabled && !SIMULATION_EVENT.isEnabled()) return null;
+		return new RunProbe(new SimulationEvent(), method, latency, player_queue);
+	}
+
+	/**
+	 * Start timing a query.
+	 *
+	 * @param method The name of the method
+	 * @param players The number of players
+	 * @param rounds The number of rounds asked about
+	 * @return The probe to finish once the query is done, or null if the counters are off and nothing is recording.
+	 */
+	static QueryProbe startQuery(String method, int players, long rounds) {
+		if (!enabled && !QUERY_EVENT.isEnabled()) return null;
+		return new QueryProbe(new QueryEvent(), method, players, rounds);
+	}
+
+	private static long allocatedBytes() {
+		return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+	}
+
+	private static com.sun.management.ThreadMXBean threads() {
+		try {
+			java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			if (threads instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean sun_threads = (com.sun.management.ThreadMXBean) threads;
+				if (sun_threads.isThreadAllocatedMemorySupported()) {
+					sun_threads.setThreadAllocatedMemoryEnabled(true);
+					return sun_threads;
+				}
+			}
+		} catch (UnsupportedOperationException | SecurityException | LinkageError e) {
+			// Not a HotSpot JVM, so allocations cannot be measured.
+		}
+		return null;
+	}
+
+	/**
+	 * The number of calls and the total and max time taken by one method.
+	 */
+	public static final class Latency {
+		private final String name;
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		private Latency(String name) {
+			this.name = name;
+		}
+
+		void record(long time) {
+			calls.increment();
+			nanos.add(time);
+			max.accumulate(time);
+		}
+
+		void reset() {
+			calls.reset();
+			nanos.reset();
+			max.reset();
+		}
+
+		/**
+		 * @return The name of the method
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return The number of calls
+		 */
+		public long getCalls() {
+			return calls.sum();
+		}
+
+		/**
+		 * @return The average time taken by a call in nanoseconds, or NaN if there have been none
+		 */
+		public double getAverageNanos() {
+			long c = calls.sum();
+			return c == 0 ? Double.NaN : (double) nanos.sum() / c;
+		}
+
+		/**
+		 * @return The longest time taken by a call in nanoseconds
+		 */
+		public long getMaxNanos() {
+			return max.get();
+		}
+	}
+
+	// A call to the brute force method that is being timed.
+	static final class RunProbe {
+		private final SimulationEvent event;
+		private final Latency latency;
+		private final long start;
+		private final long start_bytes;
+		private final double start_sum;
+
+		private RunProbe(SimulationEvent event, String method, Latency latency, PriorityQueue<Player> player_queue) {
+			this.event = event;
+			this.latency = latency;
+			event.method = method;
+			event.players = player_queue.size();
+			CompensatedSum sum = new CompensatedSum();
+			for (Player p : player_queue)
+				sum.add(p.getMoney());
+			start_sum = sum.get();
+			start_bytes = allocatedBytes();
+			event.begin();
+			start = System.nanoTime();
+		}
+
+		/**
+		 * @param rounds The number of rounds that were run
+		 * @param table The table the rounds were run on, which was then turned back into a heap
+		 */
+		void finish(long rounds, PlayerTable table) {
+			long time = System.nanoTime() - start;
+			event.end();
+			long bytes = allocatedBytes() - start_bytes;
+			long skipped = table.getSkippedRounds();
+			double drift = Math.abs(table.getSum() - start_sum);
+
+			if (enabled) {
+				GameMetrics.rounds.add(rounds);
+				skipped_rounds.add(skipped);
+				// Every player is added to the new heap.
+				heap_operations.add(table.size());
+				allocated_bytes.add(bytes);
+				total_drift.add(drift);
+				max_drift.accumulate(drift);
+				latency.record(time);
+			}
+			if (event.shouldCommit()) {
+				event.rounds = rounds;
+				event.skippedRounds = skipped;
+				event.allocatedBytes = bytes;
+				event.drift = drift;
+				event.commit();
+			}
+		}
+	}
+
+	// A query that is being timed.
+	static final class QueryProbe {
+		private final QueryEvent event;
+		private final long start;
+
+		private QueryProbe(QueryEvent event, String method, int players, long rounds) {
+			this.event = event;
+			event.method = method;
+			event.players = players;
+			event.rounds = rounds;
+			event.begin();
+			start = System.nanoTime();
+		}
+
+		/**
+		 * @param latency The latency to add the time to
+		 * @param heap_ops The number of heap adds and polls
+		 */
+		void finish(Latency latency, long heap_ops) {
+			long time = System.nanoTime() - start;
+			event.end();
+			if (enabled) {
+				latency.record(time);
+				heap_operations.add(heap_ops);
+			}
+			if (event.shouldCommit())
+				event.commit();
+		}
+	}
+}
@@ -0,0 +1,215 @@
+public final class GameRules {
+	/** Every player gives half their money to the single poorest player (the game in {@linkplain Game}). */
+	public static final GameRules CLASSIC = new GameRules(0.5, 1);
+
+	private final double fraction;
+	private final int recipients;
+	// log(1 - fraction), for powers of (1 - fraction) close to 1
+	private final double log_keep;
+
+	/**
+	 * The rules of a game where every round each player gives a fraction of their money to the pot, and the pot is
+	 * split evenly between the poorest players. The game in {@linkplain Game} is {@linkplain #CLASSIC}: half, to one
+	 * player.
+	 * <p>
+	 * Logic: <br>
+	 * Just like the classic game, if the poorest k players end up with more money than everyone else, they move to the
+	 * top in the same order and everyone else moves down k. So after n rounds the player that started at rank r is at
+	 * position {@code (r + n*k) mod(p)}, and the winner started at rank {@code (-n*k) mod(p)}.
+	 * <p>
+	 * A player gets the pot whenever their position is in the last k, which repeats every {@code P = p / gcd(p, k)}
+	 * rounds, getting the pot {@code k / gcd(p, k)} times in each. Every pot is kept at {@code (1 - f)} a round after
+	 * that, so the pots they got at the same point of every repeat are a geometric series, just like
+	 * {@linkplain Game#cycleMoney(double, int, double, long)}: <br>
+	 * {@code money = m * (1 - f)^n + sum_i (f*sum/k) * (1 - f)^(n - 1 - t_i) * (1 - (1 - f)^(P * c_i)) / (1 - (1 - f)^P)} <br>
+	 * where t_i is the last round they got pot i and c_i is how many times they got it.
+	 * <p>
+	 * This is only right once the poorest k players get enough from the pot to pass everyone else, ie) when
+	 * {@code (1 - f) * (richest - poorest) < f * sum / k} (see {@linkplain #rotates(int, double, double, double)}).
+	 * After one round like that the gap between the richest and poorest is at most {@code f * sum / k}, which is less
+	 * than the gap allowed, so once a game rotates it rotates forever. For the classic rules this is always true.
+	 * <p>
+	 * Time for a position or the winner = O(1) <br>
+	 * Time for the money of a player = O(k) (O(1) for one recipient) <br>
+	 * where k = number of recipients.
+	 *
+	 * @param fraction The fraction of their money every player gives each round, more than 0 and at most 1
+	 * @param recipients The number of poorest players the pot is split between, at least 1
+	 */
+	public GameRules(double fraction, int recipients) {
+		if (!(fraction > 0 && fraction <= 1))
+			throw new IllegalArgumentException("The fraction must be more than 0 and at most 1: " + fraction);
+		if (recipients < 1)
+			throw new IllegalArgumentException("There must be at least one recipient: " + recipients);
+		this.fraction = fraction;
+		this.recipients = recipients;
+		this.log_keep = Math.log1p(-fraction);
+	}
+
+	/**
+	 * @return The fraction of their money every player gives each round
+	 */
+	public double getFraction() {
+		return fraction;
+	}
+
+	/**
+	 * @return The number of poorest players the pot is split between
+	 */
+	public int getRecipients() {
+		return recipients;
+	}
+
+	/**
+	 * @return Whether these are the rules of the classic game (half, to one player)
+	 */
+	public boolean isClassic() {
+		return fraction == 0.5 && recipients == 1;
+	}
+
+	/**
+	 * Whether the poorest players will pass everyone else after the next round, so that the formulas are right from
+	 * here on (see {@linkplain #GameRules(double, int)}).
+	 *
+	 * @param num_players The number of players
+	 * @param richest The most money any player has
+	 * @param poorest The least money any player has
+	 * @param sum_money The sum of all players money
+	 * @return Whether the game rotates
+	 */
+	public boolean rotates(int num_players, double richest, double poorest, double sum_money) {
+		checkPlayers(num_players);
+		if (recipients == num_players) return true;
+		return (1 - fraction) * (richest - poorest) < fraction * sum_money / recipients;
+	}
+
+	/**
+	 * Time: O(1)
+	 *
+	 * @param start_rank The rank of the player before any rounds are run (0 = most money)
+	 * @param num_players The number of players
+	 * @param rounds The number of rounds run
+	 * @return The position of the player after the given number of rounds (0 = most money)
+	 */
+	public int getPosition(int start_rank, int num_players, long rounds) {
+		checkPlayers(num_players);
+		if (rounds <= 0) return start_rank;
+		return (int) ((start_rank + shift(num_players, rounds)) % num_players);
+	}
+
+	/**
+	 * Time: O(1)
+	 *
+	 * @param position The position after the given number of rounds (0 = most money, so 0 gives the winner)
+	 * @param num_players The number of players
+	 * @param rounds The number of rounds run
+	 * @return The rank before any rounds were run of the player at the position
+	 */
+	public int getStartRank(int position, int num_players, long rounds) {
+		checkPlayers(num_players);
+		if (rounds <= 0) return position;
+		return (int) ((position - shift(num_players, rounds) + num_players) % num_players);
+	}
+
+	/**
+	 * The money a player will have after a given number of rounds, without running any rounds. For the classic rules
+	 * this is exactly {@linkplain Game#getMoney(double, int, int, double, long)}.
+	 * <p>
+	 * Time: O(k / gcd(p, k)) <br>
+	 * where p = number of players, and k = number of recipients.
+	 *
+	 * @param money The money the player starts with
+	 * @param start_rank The rank of the player before any rounds are run
+	 * @param num_players The number of players
+	 * @param sum_money The sum of all players money
+	 * @param rounds The number of rounds to run
+	 * @return The amount of money the player will have after the given number of rounds
+	 */
+	public double getMoney(double money, int start_rank, int num_players, double sum_money, long rounds) {
+		checkPlayers(num_players);
+		if (rounds <= 0) return money;
+		if (isClassic()) return Game.getMoney(money, start_rank, num_players, sum_money, rounds);
+
+		int g = gcd(num_players, recipients);
+		long period = num_players / g;
+		// Each round the position goes up by k, so it goes up by g every 'step' rounds (mod p).
+		long step = period == 1 ? 0 : inverse(recipients / g, period);
+		double share = fraction * sum_money / recipients;
+		// (1 - (1 - f)^P), kept accurate when (1 - f)^P is close to 1
+		double period_loss = -Math.expm1(period * log_keep);
+
+		double result = money * keep(rounds);
+		// Every position in the last k that this player ever gets to (the ones that differ from their rank by a multiple of g)
+		int first = num_players - recipients;
+		int q = first + Math.floorMod(start_rank - first, g);
+		for (; q < num_players; q += g) {
+			// The first round (from 0) this player is at position q
+			long t = (q - start_rank) / g;
+			t = Math.floorMod(t, period) * step % period;
+			if (t >= rounds) continue;
+			long times = (rounds - 1 - t) / period + 1;
+			long last = t + (times - 1) * period;
+			double series = -Math.expm1(times * period * log_keep) / period_loss;
+			result += share * keep(rounds - 1 - last) * series;
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "GameRules[fraction=" + fraction + ", recipients=" + recipients + "]";
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof GameRules)) return false;
+		GameRules rules = (GameRules) o;
+		return Double.compare(fraction, rules.fraction) == 0 && recipients == rules.recipients;
+	}
+
+	@Override
+	public int hashCode() {
+		return Double.hashCode(fraction) * 31 + recipients;
+	}
+
+	void checkPlayers(int num_players) {
+		if (recipients > num_players)
+			throw new IllegalArgumentException("There are more recipients than players: " + recipients + " > " + num_players);
+	}
+
+	// (1 - f)^rounds
+	private double keep(long rounds) {
+		return rounds == 0 ? 1 : Math.pow(1 - fraction, rounds);
+	}
+
+	// How far every position has moved after n rounds (mod p)
+	private long shift(int num_players, long rounds) {
+		// Both are below 2^31, so this cannot overflow.
+		return rounds % num_players * recipients % num_players;
+	}
+
+	private static int gcd(int a, int b) {
+		while (b != 0) {
+			int t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	// The inverse of a mod m, where gcd(a, m) = 1
+	private static long inverse(long a, long m) {
+		long old_r = a % m, r = m;
+		long old_s = 1, s = 0;
+		while (r != 0) {
+			long quotient = old_r / r;
+			long t = old_r - quotient * r;
+			old_r = r;
+			r = t;
+			t = old_s - quotient * s;
+			old_s = s;
+			s = t;
+		}
+		return Math.floorMod(old_s, m);
+	}
+}
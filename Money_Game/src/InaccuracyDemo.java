@@ -1,12 +1,17 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.PriorityQueue;
 
 public class InaccuracyDemo {
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 		int num_players = 5_000;
 		int num_rounds = 1_078;
 		
 		//printAccuracyDiscrepancy(num_players, num_rounds);
+		//printSumDrift(num_players, num_rounds, 100);
+		//printCompensatedDrift(num_players, num_rounds, 100);
 		printLastNPlayersDiscrepancy(num_players, num_rounds, 5);
+		//printLastNPlayersResumed(num_players, num_rounds, 5, Path.of("../checkpoints"));
 	}
 	
 	public static void printAccuracyDiscrepancy(int num_players, int num_rounds) {
@@ -57,6 +62,60 @@ public class InaccuracyDemo {
 		System.out.println( lastNPlayers( players, n ) );
 	}
 	
+	/**
+	 * The same as {@linkplain #printLastNPlayersDiscrepancy(int, int, int)}, except every state comes from
+	 * {@linkplain Checkpoints} saved in the given directory. The first time it runs from round 0, saving a checkpoint
+	 * every 100 rounds. After that (even in a new process) it only runs from the last checkpoint, and every round after
+	 * the first is one round on from the one before.
+	 */
+	public static void printLastNPlayersResumed(int num_players, int num_rounds, int n, Path dir) throws IOException {
+		Checkpoints checkpoints = new Checkpoints(dir, new Game(), num_players, 100);
+		for (int round = num_rounds - 2; round <= num_rounds + 2; round++) {
+			long time = System.nanoTime();
+			PlayerTable table = checkpoints.getState(round);
+			System.out.printf("\nLast %s players after running %s rounds with %s players (%.3f ms):\n", n, round, num_players,
+					(System.nanoTime() - time) / 1e6);
+			System.out.println( lastNPlayers( table.toQueue(), n ) );
+		}
+	}
+	
+	public static void printSumDrift(int num_players, int num_rounds, int every) {
+		Game game = new Game();
+		PriorityQueue<Player> players = game.genPlayerQueue(num_players);
+		double init_sum = getSum(players);
+		
+		System.out.printf("Sum of player money every %s rounds with %s players (starts at %s):\n", every, num_players, init_sum);
+		// Only the summary of each round is kept, never a copy of the players.
+		boolean changed = false;
+		for (RoundEvent event : game.streamRounds(players, num_rounds, true)) {
+			boolean first_change = !changed && event.getSum() != init_sum;
+			if (event.getRound() % every == 0 || first_change)
+				System.out.printf("  Round %s: sum = %s, pot = %s, leader = %s\n", event.getRound(), event.getSum(), event.getPot(), event.getLeader());
+			if (first_change) {
+				System.out.println("  ^ The sum has changed for the first time");
+				changed = true;
+			}
+		}
+	}
+	
+	public static void printCompensatedDrift(int num_players, int num_rounds, int every) {
+		Game game = new Game();
+		PlayerTable naive = PlayerTable.fromQueue(game.genPlayerQueue(num_players));
+		PlayerTable compensated = naive.copy();
+		compensated.setCompensated(true);
+		double init_sum = naive.getSum();
+		
+		System.out.printf("Sum of player money every %s rounds with %s players, with and without compensated summation (starts at %s):\n", every, num_players, init_sum);
+		for (int round = 1; round <= num_rounds; round++) {
+			naive.runRound();
+			compensated.runRound();
+			if (round % every == 0 || round == num_rounds) {
+				System.out.printf("  Round %s: naive sum = %s (lost %s), compensated sum = %s (lost %s, %s in the last round)\n", round,
+						naive.getSum(), init_sum - naive.getSum(), compensated.getSum(), compensated.getDrift(), compensated.getLastDrift());
+			}
+		}
+	}
+	
 	private static String lastNPlayers(PriorityQueue<Player> players, int number) {
 		PriorityQueue<Player> pq = new PriorityQueue<>(players);
 		String s = "";
@@ -72,11 +131,11 @@ public class InaccuracyDemo {
 
 	private static double getSum(PriorityQueue<Player> players) {
 		PriorityQueue<Player> clone = new PriorityQueue<>(players);
-		double sum = 0;
+		CompensatedSum sum = new CompensatedSum();
 		while( !clone.isEmpty() ) {
-			sum += clone.poll().getMoney();
+			sum.add(clone.poll().getMoney());
 		}
-		return sum;
+		return sum.get();
 	}
 	
 	private static void printMinPlayer(PriorityQueue<Player> players) {
@@ -0,0 +1,185 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+public class LazyRoundEngine {
+	// Players by slot. Position i (0 = most money) is in slot (head + i) mod(p).
+	private final Player[] players;
+	// The money of every slot at the end of round stamp[slot]. Every round since then has just halved it.
+	private final double[] money;
+	private final long[] stamp;
+	private final double half_sum;
+	private int head;
+	private long round;
+
+	/**
+	 * A simulation of the game where a round costs O(1) no matter how many players there are.
+	 * <p>
+	 * Logic: <br>
+	 * Every player halving is the same as the whole game being scaled by 1/2, so rather than halving every players
+	 * money, each player keeps their money along with the round it was last written. Their money now is that money
+	 * scaled by {@code 2^-(rounds since)}, which is only worked out when it is asked for. Nobody's money ever has to
+	 * physically shrink.
+	 * <p>
+	 * The pot is always half the sum (the sum never changes), and the player in last always ends up with the most
+	 * money, so a round is just
+	 * <ul>
+	 * 	<li> Work out the money of the player in last, halve it, and add half the sum </li>
+	 * 	<li> Move the start of the circle back by one, so they are now in first </li>
+	 * </ul>
+	 * The players are kept in a circle just like {@linkplain ParallelRoundEngine}, so nobody else is touched.
+	 * <p>
+	 * Running a lot more than p rounds at once works out every player with
+	 * {@linkplain Game#getMoney(double, int, int, double, long)} instead, so {@linkplain #runNRounds(long)} never
+	 * costs more than O(p) however many rounds are run.
+	 * <p>
+	 * Unlike the brute force method, the pot is never added up from the halves and the money is scaled in one step,
+	 * so no money is lost and the poorest players never get stuck on the smallest {@code double}. The results are the
+	 * same as {@linkplain Game#getWinner(PriorityQueue, long)} and {@linkplain Game#getMoney(PriorityQueue, Player, long)}.
+	 * <p>
+	 * Time per round: O(1) <br>
+	 * Time for n rounds: O(min(n, p)) <br>
+	 * Time for the money of one player: O(1) <br>
+	 * Space: O(p) <br>
+	 * where p = number of players.
+	 *
+	 * @param player_queue The player heap. Neither the heap nor the players are changed (until {@linkplain #toQueue()}).
+	 */
+	public LazyRoundEngine(PriorityQueue<Player> player_queue) {
+		players = player_queue.toArray(new Player[0]);
+		Arrays.sort(players, new PlayerComp());
+		money = new double[players.length];
+		stamp = new long[players.length];
+		CompensatedSum sum = new CompensatedSum();
+		for (int i = 0; i < players.length; i++) {
+			money[i] = players[i].getMoney();
+			sum.add(money[i]);
+		}
+		half_sum = sum.get() / 2;
+	}
+
+	/**
+	 * Simulate a single round of the game.
+	 */
+	public void runRound() {
+		int p = players.length;
+		if (p == 0) return;
+		int last = slot(p - 1);
+		money[last] = Game.halve(money[last], round + 1 - stamp[last]) + half_sum;
+		round++;
+		stamp[last] = round;
+		head = last;
+	}
+
+	/**
+	 * Simulate a given number of rounds of the game.
+	 * <p>
+	 * Time: O(min(n, p)) <br>
+	 * where p = number of players, and n = number of rounds run.
+	 *
+	 * @param rounds Number of rounds to be run
+	 */
+	public void runNRounds(long rounds) {
+		int p = players.length;
+		if (p == 0 || rounds <= 0) return;
+		// A round is a few times cheaper than the formula for one player, so only use the formula for a lot of rounds.
+		if (rounds < 4L * p) {
+			for (long i = 0; i < rounds; i++)
+				runRound();
+			return;
+		}
+
+		// Everyone gets the pot at least once, so it is quicker to work out every player from where they are now.
+		double sum = half_sum * 2;
+		for (int position = 0; position < p; position++) {
+			int slot = slot(position);
+			money[slot] = Game.getMoney(currentMoney(slot), position, p, sum, rounds);
+			stamp[slot] = round + rounds;
+		}
+		round += rounds;
+		head = (int) ((head - rounds % p + p) % p);
+	}
+
+	/**
+	 * @return The number of rounds run so far
+	 */
+	public long getRound() {
+		return round;
+	}
+
+	/**
+	 * @return The number of players
+	 */
+	public int size() {
+		return players.length;
+	}
+
+	/**
+	 * @return The sum of all players money, which never changes
+	 */
+	public double getSum() {
+		return half_sum * 2;
+	}
+
+	/**
+	 * Obtain the player at a given position, where 0 is the player with the most money. The players money is not
+	 * changed, see {@linkplain #getMoney(int)}.
+	 *
+	 * @param index Position of the player
+	 * @return The player at the specified index, or null if there is none.
+	 */
+	public Player getPlayer(int index) {
+		if (index < 0 || index >= players.length) return null;
+		return players[slot(index)];
+	}
+
+	/**
+	 * Time: O(1)
+	 *
+	 * @param index Position of the player
+	 * @return The money of the player at the specified index.
+	 */
+	public double getMoney(int index) {
+		return currentMoney(slot(index));
+	}
+
+	/**
+	 * Time: O(p)
+	 *
+	 * @return The money of every player, from the most to the least
+	 */
+	public double[] getMoney() {
+		double[] out = new double[players.length];
+		for (int i = 0; i < out.length; i++)
+			out[i] = getMoney(i);
+		return out;
+	}
+
+	/**
+	 * Build a max heap of the players, with each players money set to their money in the simulation.
+	 * <p>
+	 * Time: O(p)
+	 *
+	 * @return A max heap of players based on the amount of money they have.
+	 */
+	public PriorityQueue<Player> toQueue() {
+		PriorityQueue<Player> pq = new PriorityQueue<>(Math.max(1, players.length), new PlayerComp());
+		// Adding from richest to poorest means every add is O(1), as no player ever has to move up the heap.
+		for (int i = 0; i < players.length; i++) {
+			Player p = getPlayer(i);
+			p.setMoney(getMoney(i));
+			pq.add(p);
+		}
+		return pq;
+	}
+
+	// The money of a slot now, from the money it had at the end of round stamp[slot].
+	private double currentMoney(int slot) {
+		return Game.halve(money[slot], round - stamp[slot]);
+	}
+
+	// The slot of a position
+	private int slot(int position) {
+		int s = head + position;
+		return s >= players.length ? s - players.length : s;
+	}
+}
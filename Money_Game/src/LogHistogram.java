@@ -0,0 +1,133 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class LogHistogram {
+	// Every power of two is split into this many buckets (as a power of two).
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	private final LongAdder[] buckets = new LongAdder[(64 - SUB_BITS + 1) << SUB_BITS];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+	private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+	/**
+	 * A count of how often each value was seen (ie. the time taken by something in nanoseconds), that any number of
+	 * threads can record into at once without locking.
+	 * <p>
+	 * Values are counted in buckets, 8 for every power of two, so a bucket is never more than 12.5% wide. That is
+	 * 500 or so buckets for any {@code long}, no matter how many values are recorded, and a percentile is always
+	 * within 12.5% of the real one. Every bucket is a {@code LongAdder}, so threads recording the same value do not
+	 * fight over it.
+	 * <p>
+	 * Time: O(1) to record, O(b) for a percentile <br>
+	 * Space: O(b) <br>
+	 * where b = number of buckets (about 500).
+	 */
+	public LogHistogram() {
+		for (int i = 0; i < buckets.length; i++)
+			buckets[i] = new LongAdder();
+	}
+
+	/**
+	 * @param value The value to count. Negative values are counted as 0.
+	 */
+	public void record(long value) {
+		value = Math.max(0, value);
+		buckets[bucket(value)].increment();
+		count.increment();
+		total.add(value);
+		min.accumulate(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * Forget every value recorded so far. Values recorded at the same time as this may or may not be forgotten.
+	 */
+	public void reset() {
+		for (LongAdder bucket : buckets)
+			bucket.reset();
+		count.reset();
+		total.reset();
+		min.reset();
+		max.reset();
+	}
+
+	/**
+	 * @return The number of values recorded
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @return The average value, or NaN if none have been recorded
+	 */
+	public double getAverage() {
+		long c = count.sum();
+		return c == 0 ? Double.NaN : (double) total.sum() / c;
+	}
+
+	/**
+	 * @return The smallest value, or 0 if none have been recorded
+	 */
+	public long getMin() {
+		return count.sum() == 0 ? 0 : min.get();
+	}
+
+	/**
+	 * @return The biggest value, or 0 if none have been recorded
+	 */
+	public long getMax() {
+		return count.sum() == 0 ? 0 : max.get();
+	}
+
+	/**
+	 * The value that the given fraction of values are at or below, ie) 0.5 for the median and 0.99 for the 99th
+	 * percentile.
+	 * <p>
+	 * Logic: <br>
+	 * Walk the buckets from the smallest until the count so far reaches the fraction of all values, and give the
+	 * middle of that bucket (kept between the smallest and biggest values actually seen).
+	 *
+	 * @param fraction A number from 0 to 1
+	 * @return The value, or 0 if none have been recorded
+	 */
+	public long getPercentile(double fraction) {
+		if (fraction < 0 || fraction > 1)
+			throw new IllegalArgumentException("The fraction must be from 0 to 1: " + fraction);
+		long c = count.sum();
+		if (c == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(fraction * c));
+		long seen = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i].sum();
+			if (seen >= rank) {
+				long low = lowest(i);
+				long middle = low + (lowest(i + 1) - 1 - low) / 2;
+				return Math.max(min.get(), Math.min(max.get(), middle));
+			}
+		}
+		// Values recorded while walking the buckets can leave the count short.
+		return max.get();
+	}
+
+	// The bucket of a value. Values below SUB_BUCKETS get a bucket each, and every power of two above that is split
+	// into SUB_BUCKETS buckets by the bits right below the top bit.
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS) return (int) value;
+		int top = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (top - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return ((top - SUB_BITS + 1) << SUB_BITS) + sub;
+	}
+
+	// The smallest value in a bucket.
+	private static long lowest(int bucket) {
+		if (bucket < SUB_BUCKETS) return bucket;
+		int top = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+		if (top > 62) return Long.MAX_VALUE;
+		long sub = bucket & (SUB_BUCKETS - 1);
+		return (SUB_BUCKETS + sub) << (top - SUB_BITS);
+	}
+}
@@ -0,0 +1,379 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+
+public class MappedRoster implements AutoCloseable {
+	// File layout: a header, then one fixed width record (int id, double money) per player.
+	static final int MAGIC = 0x4D475231; // "MGR1"
+	static final int HEADER_SIZE = 64;
+	static final int RECORD_SIZE = 12;
+	// Header fields
+	private static final int MAGIC_AT = 0;
+	private static final int SIZE_AT = 4;
+	private static final int HEAD_AT = 8;
+	private static final int ROUND_AT = 16;
+	private static final int SUM_AT = 24;
+	private static final int SEED_AT = 32;
+	// A single MappedByteBuffer can only be 2GB, so the records are mapped in segments of this many players.
+	static final int SEGMENT_RECORDS = (1 << 30) / RECORD_SIZE;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer header;
+	private final MappedByteBuffer[] segments;
+	private final int size;
+
+	/**
+	 * A roster of players stored in a memory mapped file rather than on the heap.
+	 * <p>
+	 * Every player is a 12 byte record (their id and money) instead of a {@code Player} object in a heap, so a roster
+	 * can be far bigger than the Java heap (or even RAM, as the operating system pages it in and out). The records are
+	 * kept from the most money to the least, so the player at any position can be found in O(1), and the file can be
+	 * closed and opened again instantly with {@linkplain #open(Path)} instead of generating the roster again.
+	 * <p>
+	 * Just like {@linkplain ParallelRoundEngine}, the records are circular: position i is in record (head + i) mod(p),
+	 * so moving the player in last to the top after a round does not move any records.
+	 * <p>
+	 * The id of a player is the number in their name, ie) id 7 is "Player 7".
+	 */
+	private MappedRoster(FileChannel channel, int size) throws IOException {
+		this.channel = channel;
+		this.size = size;
+		header = map(channel, 0, HEADER_SIZE);
+		segments = new MappedByteBuffer[(size + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS];
+		for (int i = 0; i < segments.length; i++) {
+			long first = (long) i * SEGMENT_RECORDS;
+			int records = (int) Math.min(SEGMENT_RECORDS, size - first);
+			segments[i] = map(channel, HEADER_SIZE + first * RECORD_SIZE, records * RECORD_SIZE);
+		}
+	}
+
+	private static MappedByteBuffer map(FileChannel channel, long position, int bytes) throws IOException {
+		MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, position, bytes);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+
+	/**
+	 * Generate the same roster as {@linkplain Game#genPlayerQueue(int)} straight into a file, without ever having
+	 * every player on the heap. Any existing file is replaced.
+	 * <p>
+	 * Time: O(p log(p)) <br>
+	 * where p = number of players.
+	 *
+	 * @param file The file to store the roster in
+	 * @param game The game to generate the roster with
+	 * @param num_players The number of players
+	 * @return The roster
+	 * @throws IOException If the file cannot be written
+	 */
+	public static MappedRoster create(Path file, Game game, int num_players) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		MappedRoster roster;
+		try {
+			roster = new MappedRoster(channel, num_players);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+
+		long sum = 0;
+		PrimitiveIterator.OfInt money = game.genPlayerMoney(num_players);
+		for (int i = 0; i < num_players; i++) {
+			int m = money.nextInt();
+			roster.setRecord(i, i, m);
+			sum += m;
+		}
+		roster.sort(0, num_players);
+
+		roster.header.putInt(MAGIC_AT, MAGIC);
+		roster.header.putInt(SIZE_AT, num_players);
+		roster.header.putLong(HEAD_AT, 0);
+		roster.header.putLong(ROUND_AT, 0);
+		roster.header.putDouble(SUM_AT, sum);
+		roster.header.putLong(SEED_AT, game.getSeed());
+		return roster;
+	}
+
+	/**
+	 * Open a roster that was made with {@linkplain #create(Path, Game, int)}, including any rounds run on it.
+	 * <p>
+	 * Time: O(1)
+	 *
+	 * @param file The file the roster is stored in
+	 * @return The roster
+	 * @throws IOException If the file cannot be read, or is not a roster
+	 */
+	public static MappedRoster open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			if (channel.size() < HEADER_SIZE)
+				throw new IOException("Not a roster file: " + file);
+			MappedByteBuffer header = map(channel, 0, HEADER_SIZE);
+			int size = header.getInt(SIZE_AT);
+			if (header.getInt(MAGIC_AT) != MAGIC || size < 0 || channel.size() < HEADER_SIZE + (long) size * RECORD_SIZE)
+				throw new IOException("Not a roster file: " + file);
+			return new MappedRoster(channel, size);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return The number of players
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return The number of rounds run so far
+	 */
+	public long getRound() {
+		return header.getLong(ROUND_AT);
+	}
+
+	/**
+	 * @return The seed of the game the roster was generated with
+	 */
+	public long getSeed() {
+		return header.getLong(SEED_AT);
+	}
+
+	/**
+	 * @param position Position of the player, where 0 is the player with the most money
+	 * @return The id of the player at the position
+	 */
+	public int getId(int position) {
+		return id(slot(position));
+	}
+
+	/**
+	 * @param position Position of the player, where 0 is the player with the most money
+	 * @return The money of the player at the position
+	 */
+	public double getMoney(int position) {
+		return money(slot(position));
+	}
+
+	/**
+	 * @param position Position of the player, where 0 is the player with the most money
+	 * @return A copy of the player at the position, or null if there is none.
+	 */
+	public Player getPlayer(int position) {
+		if (position < 0 || position >= size) return null;
+		int slot = slot(position);
+		return new Player(id(slot), money(slot));
+	}
+
+	/**
+	 * Acquire the sum of player money, by reading every record.
+	 * <p>
+	 * Time: O(p)
+	 *
+	 * @return The sum of money for all players
+	 * @see Game#getSum(PriorityQueue)
+	 */
+	public double getSum() {
+		CompensatedSum sum = new CompensatedSum();
+		for (int i = 0; i < size; i++)
+			sum.add(getMoney(i));
+		return sum.get();
+	}
+
+	/**
+	 * Find the winning player after a given number of rounds from now.
+	 * <p>
+	 * Time: O(1)
+	 *
+	 * @param rounds The number of rounds run
+	 * @return A copy of the winning player
+	 * @see Game#getWinner(PriorityQueue, long)
+	 */
+	public Player getWinner(long rounds) {
+		if (size == 0) return null;
+		if (rounds <= 0) return getPlayer(0);
+		return getPlayer((int) ((size - rounds % size) % size));
+	}
+
+	/**
+	 * The money the winning player will have after a given number of rounds from now.
+	 * <p>
+	 * This uses the sum stored when the roster was generated, so it does not have to read every record.
+	 * <p>
+	 * Time: O(1)
+	 *
+	 * @param rounds The number of rounds run
+	 * @return The amount money the winning player will have after the given number of rounds, or NaN if there are no
+	 *         players
+	 * @see Game#getMoney(Player, int, double, long)
+	 */
+	public double getWinnerMoney(long rounds) {
+		if (size == 0) return Double.NaN;
+		int winner_index = rounds <= 0 ? 0 : (int) ((size - rounds % size) % size);
+		return Game.getMoney(getMoney(winner_index), winner_index, size, header.getDouble(SUM_AT), rounds);
+	}
+
+	/**
+	 * Simulate a single round of the game on the records in the file, the same way as {@linkplain RoundEngine}.
+	 * <p>
+	 * Time: O(p)
+	 */
+	public void runRound() {
+		if (size == 0) return;
+		int head = (int) header.getLong(HEAD_AT);
+
+		// Halve everyone from the most money to the least (head to the end of the file, then the start of the file to head).
+		double pot = halve(head, size, 0);
+		pot = halve(0, head, pot);
+
+		int last = slot(size - 1);
+		double recipient_money = money(last) + pot;
+		setMoney(last, recipient_money);
+
+		if (size == 1 || recipient_money > money(head)) {
+			// They are now the richest player, so the circle just starts one earlier. (If they tie with the richest
+			// they go after them, the same as PlayerTable, so they take the binary search below.)
+			header.putLong(HEAD_AT, last);
+		}
+		else {
+			// Otherwise binary search for the first position with less money than them and shift everyone below down one.
+			int recipient = id(last);
+			int lo = 0;
+			int hi = size - 1;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (getMoney(mid) < recipient_money)
+					hi = mid;
+				else
+					lo = mid + 1;
+			}
+			for (int i = size - 1; i > lo; i--) {
+				int from = slot(i - 1);
+				setRecord(slot(i), id(from), money(from));
+			}
+			setRecord(slot(lo), recipient, recipient_money);
+		}
+		header.putLong(ROUND_AT, header.getLong(ROUND_AT) + 1);
+	}
+
+	/**
+	 * Simulate a given number of rounds of the game on the records in the file.
+	 *
+	 * @param rounds Number of rounds to be run
+	 */
+	public void runNRounds(long rounds) {
+		for (long i = 0; i < rounds; i++)
+			runRound();
+	}
+
+	// Halve every record in [from, to), adding the halves to the pot.
+	private double halve(int from, int to, double pot) {
+		double pmoney = 0;
+		for (int slot = from; slot < to; slot++) {
+			// Same arithmetic as Game.runRound
+			double money = money(slot);
+			pmoney = money / 2;
+			setMoney(slot, money - pmoney);
+			pot += pmoney;
+		}
+		return pot;
+	}
+
+	/**
+	 * Write any changes out to the file.
+	 */
+	public void force() {
+		header.force();
+		for (MappedByteBuffer segment : segments)
+			segment.force();
+	}
+
+	/**
+	 * Write any changes out to the file and close it.
+	 */
+	@Override
+	public void close() throws IOException {
+		force();
+		channel.close();
+	}
+
+	// The slot of a position
+	private int slot(int position) {
+		long s = header.getLong(HEAD_AT) + position;
+		return (int) (s >= size ? s - size : s);
+	}
+
+	private int id(int slot) {
+		return segments[slot / SEGMENT_RECORDS].getInt((slot % SEGMENT_RECORDS) * RECORD_SIZE);
+	}
+
+	private double money(int slot) {
+		return segments[slot / SEGMENT_RECORDS].getDouble((slot % SEGMENT_RECORDS) * RECORD_SIZE + 4);
+	}
+
+	private void setMoney(int slot, double money) {
+		segments[slot / SEGMENT_RECORDS].putDouble((slot % SEGMENT_RECORDS) * RECORD_SIZE + 4, money);
+	}
+
+	private void setRecord(int slot, int id, double money) {
+		MappedByteBuffer segment = segments[slot / SEGMENT_RECORDS];
+		int at = (slot % SEGMENT_RECORDS) * RECORD_SIZE;
+		segment.putInt(at, id);
+		segment.putDouble(at + 4, money);
+	}
+
+	private void swap(int a, int b) {
+		int id = id(a);
+		double money = money(a);
+		setRecord(a, id(b), money(b));
+		setRecord(b, id, money);
+	}
+
+	// Sort the records in [lo, hi) from the most money to the least, in place in the file.
+	private void sort(int lo, int hi) {
+		while (hi - lo > 16) {
+			double x = money(lo), y = money((lo + hi) >>> 1), z = money(hi - 1);
+			double pivot = Math.max(Math.min(x, y), Math.min(Math.max(x, y), z));
+
+			// Three way partition: [lo, lt) has more money than the pivot, [lt, gt) the same, and [gt, hi) less.
+			int lt = lo;
+			int gt = hi;
+			int i = lo;
+			while (i < gt) {
+				double m = money(i);
+				if (m > pivot)
+					swap(lt++, i++);
+				else if (m < pivot)
+					swap(i, --gt);
+				else
+					i++;
+			}
+			// Recurse on the smaller side so the stack stays O(log(p)).
+			if (lt - lo < hi - gt) {
+				sort(lo, lt);
+				lo = gt;
+			}
+			else {
+				sort(gt, hi);
+				hi = lt;
+			}
+		}
+		// Insertion sort for small ranges
+		for (int i = lo + 1; i < hi; i++) {
+			int id = id(i);
+			double money = money(i);
+			int j = i - 1;
+			for (; j >= lo && money(j) < money; j--)
+				setRecord(j + 1, id(j), money(j));
+			setRecord(j + 1, id, money);
+		}
+	}
+}
@@ -0,0 +1,234 @@
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MonteCarlo {
+	// Games allowed to be waiting to run at once, per core. A waiting game is only a seed, so this only needs to be
+	// big enough that the threads never run out of games between two waits.
+	private static final int GAMES_PER_CORE = 256;
+
+	private final int num_players;
+	private final long rounds;
+	// Tables (and their generator buffers) not being used by a game right now
+	private final ConcurrentLinkedQueue<Buffers> buffers = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Runs lots of games, one for every seed in a range, and adds up how they turned out: how often the winner
+	 * started at each rank, how much of all the money the winner ends up with, and how long each game took.
+	 * <p>
+	 * Every game is run as its own task, on a virtual thread when the JVM has them (Java 21+) and on a work stealing
+	 * pool with one thread per core otherwise, so every core is kept busy without choosing a pool size. The results
+	 * go straight into {@code LongAdder}s and other lock-free counters rather than into a list, so nothing is kept per
+	 * game.
+	 * <p>
+	 * A game needs a {@linkplain PlayerTable} and a buffer to generate the players with. Instead of making new ones
+	 * for every game, a finished game hands them back to be used by the next one. A game only takes them once it is
+	 * actually running, and there are never more games running than threads, so the memory used is O(t * p) no
+	 * matter how many games are run. (Games waiting to run are limited too, but they are only a seed each.)
+	 * <p>
+	 * Time: O(g * n * p / t), see {@linkplain PlayerTable#runNRounds(long)} <br>
+	 * Space: O(t * p) <br>
+	 * where g = number of games, n = number of rounds, p = number of players, and t = number of threads.
+	 *
+	 * @param num_players The number of players in every game
+	 * @param rounds The number of rounds to run in every game
+	 */
+	public MonteCarlo(int num_players, long rounds) {
+		if (num_players <= 0)
+			throw new IllegalArgumentException("There must be at least one player: " + num_players);
+		if (rounds < 0)
+			throw new IllegalArgumentException("The number of rounds cannot be negative: " + rounds);
+		this.num_players = num_players;
+		this.rounds = rounds;
+	}
+
+	/**
+	 * Run a game for every seed from {@code first_seed} to {@code first_seed + num_games - 1}.
+	 *
+	 * @param first_seed The seed of the first game
+	 * @param num_games The number of games
+	 * @return How the games turned out
+	 * @throws InterruptedException If interrupted while waiting for the games to finish
+	 */
+	public Results run(long first_seed, int num_games) throws InterruptedException {
+		Results results = new Results(num_players, rounds);
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		Semaphore permits = new Semaphore(parallelism * GAMES_PER_CORE);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		ExecutorService executor = newExecutor();
+		try {
+			for (int i = 0; i < num_games && failure.get() == null; i++) {
+				long seed = first_seed + i;
+				// Wait for a game to finish before letting in another, so the waiting games stay bounded.
+				permits.acquire();
+				executor.execute(() -> {
+					try {
+						runGame(seed, results);
+					} catch (Throwable t) {
+						failure.compareAndSet(null, t);
+					} finally {
+						permits.release();
+					}
+				});
+			}
+			// Every permit is back once every game is done.
+			permits.acquire(parallelism * GAMES_PER_CORE);
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		if (failure.get() != null)
+			throw new IllegalStateException("A game failed", failure.get());
+		return results;
+	}
+
+	// Run one game on a recycled table and add it to the results.
+	private void runGame(long seed, Results results) {
+		Buffers b = buffers.poll();
+		if (b == null) b = new Buffers(num_players);
+
+		long start = System.nanoTime();
+		new Game(seed).genPlayerTable(b.table, b.seen);
+		// Remember where every player started, as the ids are 0 to p - 1.
+		for (int i = 0; i < num_players; i++)
+			b.start_rank[b.table.getId(i)] = i;
+		b.table.runNRounds(rounds);
+		int winner_rank = b.start_rank[b.table.getId(0)];
+		double share = b.table.getMoney(0) / b.table.getSum();
+		long time = System.nanoTime() - start;
+
+		buffers.offer(b);
+		results.add(winner_rank, share, time);
+	}
+
+	// Virtual threads if there are any (Java 21+), without needing Java 21 to compile.
+	static ExecutorService newExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newWorkStealingPool();
+		}
+	}
+
+	// Everything one game needs, handed from one game to the next.
+	private static final class Buffers {
+		private final PlayerTable table;
+		private final long[] seen;
+		private final int[] start_rank;
+
+		private Buffers(int num_players) {
+			table = new PlayerTable(new int[num_players], new double[num_players]);
+			seen = new long[Game.seenLength(num_players)];
+			start_rank = new int[num_players];
+		}
+	}
+
+	/**
+	 * How a batch of games turned out. Any number of games can add to this at once.
+	 */
+	public static final class Results {
+		private final int num_players;
+		private final long rounds;
+		// Number of wins for every starting rank that has won at least once
+		private final ConcurrentHashMap<Integer, LongAdder> wins = new ConcurrentHashMap<>();
+		private final DoubleAdder share_sum = new DoubleAdder();
+		private final DoubleAdder share_squares = new DoubleAdder();
+		private final DoubleAccumulator min_share = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+		private final DoubleAccumulator max_share = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+		private final LogHistogram nanos = new LogHistogram();
+
+		private Results(int num_players, long rounds) {
+			this.num_players = num_players;
+			this.rounds = rounds;
+		}
+
+		private void add(int winner_rank, double share, long time) {
+			wins.computeIfAbsent(winner_rank, rank -> new LongAdder()).increment();
+			share_sum.add(share);
+			share_squares.add(share * share);
+			min_share.accumulate(share);
+			max_share.accumulate(share);
+			nanos.record(time);
+		}
+
+		/**
+		 * @return The number of games run
+		 */
+		public long getGames() {
+			return nanos.getCount();
+		}
+
+		/**
+		 * @return The number of games won by the player that started at each rank (0 = most money), for every rank
+		 *         that won at least once
+		 */
+		public Map<Integer, Long> getWinnerRanks() {
+			Map<Integer, Long> ranks = new TreeMap<>();
+			wins.forEach((rank, count) -> ranks.put(rank, count.sum()));
+			return ranks;
+		}
+
+		/**
+		 * @return The average fraction of all the money the winner ends up with, or NaN if no games were run
+		 */
+		public double getAverageShare() {
+			return share_sum.sum() / getGames();
+		}
+
+		/**
+		 * @return The standard deviation of the fraction of all the money the winner ends up with
+		 */
+		public double getShareDeviation() {
+			double average = getAverageShare();
+			return Math.sqrt(Math.max(0, share_squares.sum() / getGames() - average * average));
+		}
+
+		/**
+		 * @return The smallest fraction of all the money a winner ended up with
+		 */
+		public double getMinShare() {
+			return min_share.get();
+		}
+
+		/**
+		 * @return The biggest fraction of all the money a winner ended up with
+		 */
+		public double getMaxShare() {
+			return max_share.get();
+		}
+
+		/**
+		 * @return The time taken by every game in nanoseconds
+		 */
+		public LogHistogram getNanos() {
+			return nanos;
+		}
+
+		/**
+		 * @return Everything above, one line each
+		 */
+		public String report() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("Games run          = %d (%d players, %d rounds each)%n", getGames(), num_players, rounds));
+			sb.append(String.format("Winner share       = %.6f average, %.6f deviation, %.6f - %.6f%n", getAverageShare(),
+					getShareDeviation(), getMinShare(), getMaxShare()));
+			sb.append(String.format("Time per game      = %.5f ms average, %.5f ms p50, %.5f ms p99, %.5f ms max%n",
+					nanos.getAverage() / 1e6, nanos.getPercentile(0.5) / 1e6, nanos.getPercentile(0.99) / 1e6,
+					nanos.getMax() / 1e6));
+			sb.append("Winner start ranks =");
+			getWinnerRanks().forEach((rank, count) -> sb.append(String.format(" %d: %d", rank, count)));
+			sb.append(System.lineSeparator());
+			return sb.toString();
+		}
+	}
+}
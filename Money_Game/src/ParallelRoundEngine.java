@@ -0,0 +1,211 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ParallelRoundEngine {
+	// Number of players each task halves. This never depends on the number of threads, so neither does the pot.
+	static final int CHUNK_SIZE = 1 << 15;
+
+	private final ForkJoinPool pool;
+	private final Player[] players;
+	// Money and player (index into 'players') for every slot. Position i is in slot (head + i) mod(p).
+	private final double[] money;
+	private final int[] slot_player;
+	private final double[] partial_pots;
+	private int head;
+	private long round;
+
+	/**
+	 * A brute-force simulation of the game that splits every round across many threads.
+	 * <p>
+	 * Logic: <br>
+	 * The money is kept in a {@code double[]} sorted from the most money to the least. Every round the array is cut
+	 * into chunks of {@value #CHUNK_SIZE} players, and each chunk is halved and summed into its own part of the pot by
+	 * a task in the pool. The parts of the pot are then added up in chunk order. The chunks are always the same no
+	 * matter how many threads there are, so the pot (and every players money) is exactly the same between runs.
+	 * <p>
+	 * The array is circular, so when the player in last gets the pot and moves to the top, nothing has to be copied;
+	 * the start of the array just moves back by one.
+	 * <p>
+	 * Time per round: O(p / t) <br>
+	 * Space: O(p) <br>
+	 * where p = number of players, and t = number of threads. As the halving reads and writes every players money
+	 * once per round, very large rosters end up limited by memory bandwidth rather than by the number of threads.
+	 * <p>
+	 * Note: the pot is added up in a different order to {@linkplain RoundEngine}, so the money can differ from it
+	 * in the last bit. Unlike {@linkplain RoundEngine} the players are only updated by {@linkplain #toQueue()}.
+	 *
+	 * @param player_queue The player heap. Neither the heap nor the players are changed (until {@linkplain #toQueue()}).
+	 * @param pool The pool to run the rounds in
+	 */
+	public ParallelRoundEngine(PriorityQueue<Player> player_queue, ForkJoinPool pool) {
+		this.pool = pool;
+		players = player_queue.toArray(new Player[0]);
+		Arrays.parallelSort(players, new PlayerComp());
+		money = new double[players.length];
+		slot_player = new int[players.length];
+		for (int i = 0; i < players.length; i++) {
+			money[i] = players[i].getMoney();
+			slot_player[i] = i;
+		}
+		partial_pots = new double[(players.length + CHUNK_SIZE - 1) / CHUNK_SIZE];
+		head = 0;
+		round = 0;
+	}
+
+	/**
+	 * Same as {@linkplain #ParallelRoundEngine(PriorityQueue, ForkJoinPool)} using the common pool.
+	 *
+	 * @param player_queue The player heap.
+	 */
+	public ParallelRoundEngine(PriorityQueue<Player> player_queue) {
+		this(player_queue, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Simulate a single round of the game.
+	 */
+	public void runRound() {
+		int p = money.length;
+		if (p == 0) return;
+
+		HalveTask halve = new HalveTask(0, partial_pots.length);
+		if (partial_pots.length == 1)
+			halve.compute();
+		else
+			pool.invoke(halve);
+		double pot = 0;
+		for (double partial : partial_pots)
+			pot += partial;
+
+		// The player in last gets the pot.
+		int last = slot(p - 1);
+		money[last] += pot;
+
+		if (p == 1 || money[last] > money[head]) {
+			// They are now the richest player, so the circle just starts one earlier. (If they tie with the richest
+			// they go after them, the same as PlayerTable, so they take the binary search below.)
+			head = last;
+		}
+		else {
+			// Otherwise binary search for the first position with less money than them and shift everyone below down one.
+			double recipient_money = money[last];
+			int recipient = slot_player[last];
+			int lo = 0;
+			int hi = p - 1;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (money[slot(mid)] < recipient_money)
+					hi = mid;
+				else
+					lo = mid + 1;
+			}
+			for (int i = p - 1; i > lo; i--) {
+				int to = slot(i);
+				int from = slot(i - 1);
+				money[to] = money[from];
+				slot_player[to] = slot_player[from];
+			}
+			money[slot(lo)] = recipient_money;
+			slot_player[slot(lo)] = recipient;
+		}
+		round++;
+	}
+
+	/**
+	 * Simulate a given number of rounds of the game.
+	 *
+	 * @param rounds Number of rounds to be run
+	 */
+	public void runNRounds(long rounds) {
+		for (long i = 0; i < rounds; i++)
+			runRound();
+	}
+
+	// The slot of a position
+	private int slot(int position) {
+		int s = head + position;
+		return s >= money.length ? s - money.length : s;
+	}
+
+	// Halves a range of chunks, splitting in two until there is only one chunk left.
+	private class HalveTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from_chunk;
+		private final int to_chunk;
+
+		HalveTask(int from_chunk, int to_chunk) {
+			this.from_chunk = from_chunk;
+			this.to_chunk = to_chunk;
+		}
+
+		@Override
+		protected void compute() {
+			if (to_chunk - from_chunk > 1) {
+				int mid = (from_chunk + to_chunk) >>> 1;
+				invokeAll(new HalveTask(from_chunk, mid), new HalveTask(mid, to_chunk));
+				return;
+			}
+			int start = from_chunk * CHUNK_SIZE;
+			int end = Math.min(start + CHUNK_SIZE, money.length);
+			double pot = 0;
+			double pmoney = 0;
+			for (int i = start; i < end; i++) {
+				// Same arithmetic as Game.runRound
+				pmoney = money[i] / 2;
+				money[i] -= pmoney;
+				pot += pmoney;
+			}
+			partial_pots[from_chunk] = pot;
+		}
+	}
+
+	/**
+	 * @return The number of rounds run so far
+	 */
+	public long getRound() {
+		return round;
+	}
+
+	/**
+	 * @return The number of players
+	 */
+	public int size() {
+		return money.length;
+	}
+
+	/**
+	 * Obtain the player at a given position, where 0 is the player with the most money.
+	 *
+	 * @param index Position of the player
+	 * @return The player at the specified index, or null if there is none.
+	 */
+	public Player getPlayer(int index) {
+		if (index < 0 || index >= money.length) return null;
+		return players[slot_player[slot(index)]];
+	}
+
+	/**
+	 * @param index Position of the player
+	 * @return The money of the player at the specified index.
+	 */
+	public double getMoney(int index) {
+		return money[slot(index)];
+	}
+
+	/**
+	 * Build a max heap of the players, with each players money set to their money in the simulation.
+	 *
+	 * @return A max heap of players based on the amount of money they have.
+	 */
+	public PriorityQueue<Player> toQueue() {
+		PriorityQueue<Player> pq = new PriorityQueue<>(Math.max(1, money.length), new PlayerComp());
+		for (int i = 0; i < money.length; i++) {
+			Player p = getPlayer(i);
+			p.setMoney(getMoney(i));
+			pq.add(p);
+		}
+		return pq;
+	}
+}
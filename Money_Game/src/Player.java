@@ -2,9 +2,17 @@
 public class Player {
 	private double money;
 	private String name;
+	private final int id;
 	Player(String name, double money){
 		this.money = money;
 		this.name = name;
+		this.id = -1;
+	}
+	// The name is only built when it is asked for, as most players never need one.
+	Player(int id, double money){
+		this.money = money;
+		this.name = null;
+		this.id = id;
 	}
 	
 	double setMoney(double amt) {
@@ -20,7 +28,13 @@ public class Player {
 	double getMoney() {
 		return money;
 	}
+	// -1 for players made with a name.
+	int getId() {
+		return id;
+	}
 	String getName() {
+		if (name == null)
+			name = "Player " + id;
 		return name;
 	}
 	
@@ -32,6 +46,6 @@ public class Player {
 	}
 	
 	public String toString() {
-		return name + " - " + money;
+		return getName() + " - " + money;
 	}
 }
@@ -0,0 +1,145 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+public class PlayerSelect {
+	private final Player[] players;
+	// Money of every player, kept in the same order as 'order' so partitioning only touches primitive arrays.
+	private final double[] money;
+	// Index into 'players' for every position.
+	private final int[] order;
+
+	/**
+	 * Find the player at a given index of a heap (0 = most money) without polling the heap.
+	 * <p>
+	 * Logic: <br>
+	 * Polling a clone of the heap {@code index} times costs O(p) for the clone plus O(index * log(p)) for the polls.
+	 * Instead this takes a snapshot of everyones money into a {@code double[]} and uses quickselect (nth-element),
+	 * which partitions the snapshot around a pivot and then only keeps going on the side that has the index we want.
+	 * <p>
+	 * Time to snapshot = O(p) <br>
+	 * Time to select = O(p) expected <br>
+	 * Space = O(p) <br>
+	 * where p = number of players in the heap.
+	 * <p>
+	 * Note: selecting only moves things around inside the snapshot, so every select after the first one is faster.
+	 *
+	 * @param player_queue The player heap. It is not changed.
+	 */
+	public PlayerSelect(PriorityQueue<Player> player_queue) {
+		players = player_queue.toArray(new Player[0]);
+		money = new double[players.length];
+		order = new int[players.length];
+		for (int i = 0; i < players.length; i++) {
+			money[i] = players[i].getMoney();
+			order[i] = i;
+		}
+	}
+
+	/**
+	 * @return The number of players in the snapshot
+	 */
+	public int size() {
+		return players.length;
+	}
+
+	/**
+	 * Obtain the player at a specified index, where index 0 is the player with the most money.
+	 *
+	 * @param index Index you want to return
+	 * @return The player at the specified index, or null if there is none.
+	 */
+	public Player select(int index) {
+		if (index < 0 || index >= players.length) return null;
+		select(0, players.length, new int[] { index }, 0, 1);
+		return players[order[index]];
+	}
+
+	/**
+	 * Obtain the players at many indices in one pass. Each partition is shared by every index that falls on
+	 * its side, so this is much faster than calling {@linkplain #select(int)} once per index.
+	 * <p>
+	 * Time = O(p log(k)) expected, where k = number of distinct indices.
+	 *
+	 * @param indices Indices you want to return
+	 * @return The player at each of the specified indices (null for an index with no player).
+	 */
+	public Player[] select(int[] indices) {
+		// Sorted and de-duplicated copy of the valid indices
+		int[] ranks = new int[indices.length];
+		int count = 0;
+		for (int index : indices)
+			if (index >= 0 && index < players.length)
+				ranks[count++] = index;
+		Arrays.sort(ranks, 0, count);
+		int distinct = 0;
+		for (int i = 0; i < count; i++)
+			if (distinct == 0 || ranks[distinct - 1] != ranks[i])
+				ranks[distinct++] = ranks[i];
+
+		select(0, players.length, ranks, 0, distinct);
+
+		Player[] selected = new Player[indices.length];
+		for (int i = 0; i < indices.length; i++)
+			if (indices[i] >= 0 && indices[i] < players.length)
+				selected[i] = players[order[indices[i]]];
+		return selected;
+	}
+
+	// Partition [lo, hi) until every index in ranks[rlo, rhi) holds the right player.
+	private void select(int lo, int hi, int[] ranks, int rlo, int rhi) {
+		while (rlo < rhi && hi - lo > 1) {
+			double pivot = medianOfThree(lo, (lo + hi) >>> 1, hi - 1);
+
+			// Three way partition: [lo, lt) has more money than the pivot, [lt, gt) the same, and [gt, hi) less.
+			int lt = lo;
+			int gt = hi;
+			int i = lo;
+			while (i < gt) {
+				if (money[i] > pivot)
+					swap(lt++, i++);
+				else if (money[i] < pivot)
+					swap(i, --gt);
+				else
+					i++;
+			}
+
+			// Every index in [lt, gt) is now in place. Split the rest of the indices between the two sides.
+			int left = lowerBound(ranks, rlo, rhi, lt);
+			int right = lowerBound(ranks, left, rhi, gt);
+			select(lo, lt, ranks, rlo, left);
+			lo = gt;
+			rlo = right;
+		}
+	}
+
+	private double medianOfThree(int a, int b, int c) {
+		double x = money[a], y = money[b], z = money[c];
+		if (x < y) {
+			if (y < z) return y;
+			return x < z ? z : x;
+		}
+		if (x < z) return x;
+		return y < z ? z : y;
+	}
+
+	// First position in ranks[lo, hi) that is >= value.
+	private static int lowerBound(int[] ranks, int lo, int hi, int value) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (ranks[mid] < value)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	private void swap(int i, int j) {
+		double m = money[i];
+		money[i] = money[j];
+		money[j] = m;
+		int o = order[i];
+		order[i] = order[j];
+		order[j] = o;
+	}
+}
@@ -0,0 +1,647 @@
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+
+public class PlayerTable {
+	// Id and money for every slot. Position i (0 = most money) is in slot (head + i) mod(p).
+	private final int[] ids;
+	private final double[] money;
+	// The players the table was made from (by slot), if it was made from a heap. Otherwise null.
+	private final Player[] source;
+	private int head;
+	private long round;
+	// The position of the player that got the pot last round
+	private int recipient_position;
+	// A hash of the players and their money at the start of the last round (only while looking for a cycle)
+	private long state_hash;
+	private long skipped_rounds;
+	// Whether the pot is summed without rounding errors, and how much money rounding has lost since then
+	private boolean compensated;
+	private double drift;
+	private double last_drift;
+	// What halves the money every round (only when not compensated)
+	private RoundKernel kernel = RoundKernel.getDefault();
+
+	/**
+	 * A roster of players stored as two arrays (the id and money of every player) rather than as {@code Player}
+	 * objects in a heap.
+	 * <p>
+	 * A {@code Player} in a {@code PriorityQueue} costs around 100 bytes (the object, its name, and the heap slot),
+	 * and running a round means jumping all over memory from one player to the next. Here a player is 12 bytes
+	 * (an {@code int} and a {@code double}), and a round is one pass over a {@code double[]}. Names are only made
+	 * when asked for, from the id (id 7 is "Player 7").
+	 * <p>
+	 * The players are always kept from the most money to the least. Just like {@linkplain ParallelRoundEngine}, the
+	 * arrays are circular, so when the player in last gets the pot and moves to the top nothing has to be moved.
+	 * <p>
+	 * Time to build = O(p log(p)) <br>
+	 * Space = O(p) <br>
+	 * where p = number of players.
+	 *
+	 * @param ids The id of every player. The array is used (and sorted) in place.
+	 * @param money The money of every player. The array is used (and sorted) in place.
+	 */
+	public PlayerTable(int[] ids, double[] money) {
+		if (ids.length != money.length)
+			throw new IllegalArgumentException("ids and money must be the same length: " + ids.length + " != " + money.length);
+		this.ids = ids;
+		this.money = money;
+		this.source = null;
+
+		// Nothing to do if they are already sorted (ie. from a Snapshot), which also keeps any ties in order.
+		boolean sorted = true;
+		for (int i = 1; i < money.length && sorted; i++)
+			sorted = money[i - 1] >= money[i];
+		if (sorted) return;
+
+		// Sort the money along with the slot it came from, then put the ids in the same order.
+		int[] order = new int[money.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		sort(money, order, 0, money.length);
+		int[] sorted_ids = new int[ids.length];
+		for (int i = 0; i < order.length; i++)
+			sorted_ids[i] = ids[order[i]];
+		System.arraycopy(sorted_ids, 0, ids, 0, ids.length);
+	}
+
+	private PlayerTable(Player[] players) {
+		Arrays.sort(players, new PlayerComp());
+		source = players;
+		ids = new int[players.length];
+		money = new double[players.length];
+		for (int i = 0; i < players.length; i++) {
+			ids[i] = players[i].getId();
+			money[i] = players[i].getMoney();
+		}
+	}
+
+	// A copy of another table, sharing the same source players.
+	private PlayerTable(PlayerTable table) {
+		ids = table.ids.clone();
+		money = table.money.clone();
+		source = table.source == null ? null : table.source.clone();
+		head = table.head;
+		round = table.round;
+		recipient_position = table.recipient_position;
+		skipped_rounds = table.skipped_rounds;
+		compensated = table.compensated;
+		drift = table.drift;
+		last_drift = table.last_drift;
+		kernel = table.kernel;
+	}
+
+	// Carry on counting rounds from a saved table (see Checkpoints), as a table from a Snapshot starts at round 0.
+	void setRound(long round) {
+		this.round = round;
+	}
+
+	// Replace every player with "Player i" having the i'th money from the generator, reusing the same arrays so
+	// nothing is allocated (see MonteCarlo). The table starts again from round 0.
+	void load(PrimitiveIterator.OfInt gen) {
+		if (source != null)
+			throw new IllegalStateException("A table made from a heap cannot be loaded with new players");
+		for (int i = 0; i < money.length; i++) {
+			ids[i] = i;
+			money[i] = gen.nextInt();
+		}
+		// The ids start as 0 to p - 1, which is exactly the order the sort moves along with the money.
+		sort(money, ids, 0, money.length);
+		head = 0;
+		round = 0;
+		recipient_position = 0;
+		state_hash = 0;
+		skipped_rounds = 0;
+		drift = 0;
+		last_drift = 0;
+	}
+
+	/**
+	 * Build a table from a heap of players. The players are remembered, so {@linkplain #toQueue()} gives back the
+	 * same players (with their money updated) just like {@linkplain Game#runNRounds(PriorityQueue, int)} does.
+	 *
+	 * @param player_queue The player heap. Neither the heap nor the players are changed (until {@linkplain #toQueue()}).
+	 * @return The table
+	 */
+	public static PlayerTable fromQueue(PriorityQueue<Player> player_queue) {
+		return new PlayerTable(player_queue.toArray(new Player[0]));
+	}
+
+	/**
+	 * @return The number of players
+	 */
+	public int size() {
+		return money.length;
+	}
+
+	/**
+	 * @return The number of rounds run so far
+	 */
+	public long getRound() {
+		return round;
+	}
+
+	/**
+	 * @return The current position of the player that got the pot in the last round (almost always 0)
+	 */
+	public int getRecipientPosition() {
+		return recipient_position;
+	}
+
+	/**
+	 * A copy of the table that can be run on its own. If this table was made from a heap, the copy remembers the same
+	 * players, so only one of them should use {@linkplain #writeBack()} or {@linkplain #toQueue()}.
+	 *
+	 * @return The copy
+	 */
+	public PlayerTable copy() {
+		return new PlayerTable(this);
+	}
+
+	/**
+	 * @param position Position of the player, where 0 is the player with the most money
+	 * @return The id of the player at the position
+	 */
+	public int getId(int position) {
+		return ids[slot(position)];
+	}
+
+	/**
+	 * @param position Position of the player, where 0 is the player with the most money
+	 * @return The money of the player at the position
+	 */
+	public double getMoney(int position) {
+		return money[slot(position)];
+	}
+
+	/**
+	 * @param position Position of the player, where 0 is the player with the most money
+	 * @return The name of the player at the position
+	 */
+	public String getName(int position) {
+		int slot = slot(position);
+		return source != null ? source[slot].getName() : "Player " + ids[slot];
+	}
+
+	/**
+	 * @param position Position of the player, where 0 is the player with the most money
+	 * @return The player at the position (the original player if the table was made from a heap, otherwise a new
+	 *         player), or null if there is none.
+	 */
+	public Player getPlayer(int position) {
+		if (position < 0 || position >= money.length) return null;
+		int slot = slot(position);
+		if (source == null) return new Player(ids[slot], money[slot]);
+		source[slot].setMoney(money[slot]);
+		return source[slot];
+	}
+
+	// A new player with the name and money of the player at the position, which does not change with the table.
+	Player copyPlayer(int position) {
+		int slot = slot(position);
+		return source != null ? new Player(source[slot].getName(), money[slot]) : new Player(ids[slot], money[slot]);
+	}
+
+	/**
+	 * Acquire the sum of player money, without losing any of it to rounding (see {@linkplain CompensatedSum}).
+	 * <p>
+	 * Time: O(p)
+	 *
+	 * @return The sum of money for all players
+	 */
+	public double getSum() {
+		return CompensatedSum.sum(money);
+	}
+
+	/**
+	 * Choose how the pot is added up every round.
+	 * <p>
+	 * By default the halves are added one after the other, the same as the heap always did, so the results match
+	 * {@linkplain Game#runNRounds(PriorityQueue, int)} exactly. But every add rounds, and the money rounded away is
+	 * just gone, which is where most of the drift in the sum comes from (see {@linkplain InaccuracyDemo}).
+	 * <p>
+	 * When compensated, the rounding error of every add is kept in the same loop that halves the money and is added
+	 * back to the pot (see {@linkplain CompensatedSum}), so the only money lost is the last rounding when the pot is
+	 * given to the player in last. That is also measured exactly, see {@linkplain #getDrift()}. This costs well under
+	 * 20% more per round, as the extra adds run alongside the pot instead of after it.
+	 *
+	 * @param compensated Whether to sum the pot without rounding errors
+	 */
+	public void setCompensated(boolean compensated) {
+		this.compensated = compensated;
+	}
+
+	/**
+	 * @return Whether the pot is summed without rounding errors, see {@linkplain #setCompensated(boolean)}
+	 */
+	public boolean isCompensated() {
+		return compensated;
+	}
+
+	/**
+	 * The money lost to rounding over every round run while compensated (positive if money was lost, negative if
+	 * some was made).
+	 *
+	 * @return The money lost so far, or NaN if the table is not compensated
+	 */
+	public double getDrift() {
+		return compensated ? drift : Double.NaN;
+	}
+
+	/**
+	 * @return The money lost to rounding in the last round, or NaN if the table is not compensated
+	 */
+	public double getLastDrift() {
+		return compensated ? last_drift : Double.NaN;
+	}
+
+	/**
+	 * Choose what halves the money every round, see {@linkplain RoundKernel}. Only {@linkplain RoundKernel#SCALAR}
+	 * (the default unless {@code -Dmoney.kernel} says otherwise) gives the exact same results as the heap, as any
+	 * other kernel adds the halves up in a different order. It is not used while compensated.
+	 *
+	 * @param kernel The kernel to halve the money with
+	 */
+	public void setKernel(RoundKernel kernel) {
+		if (kernel == null)
+			throw new IllegalArgumentException("The kernel cannot be null");
+		this.kernel = kernel;
+	}
+
+	/**
+	 * @return What halves the money every round, see {@linkplain #setKernel(RoundKernel)}
+	 */
+	public RoundKernel getKernel() {
+		return kernel;
+	}
+
+	/**
+	 * Simulate a single round of the game. The money is halved and summed from the top down, the same order as
+	 * the heap, so the results are the exact same as {@linkplain Game#runNRounds(PriorityQueue, int)} always gave.
+	 * <p>
+	 * Time: O(p) <br>
+	 * Space: O(1)
+	 *
+	 * @return The amount of money in the pot
+	 */
+	public double runRound() {
+		return runRound(false);
+	}
+
+	// Run a round, and if 'hash' is set also hash the state at the start of the round into state_hash.
+	private double runRound(boolean hash) {
+		int p = money.length;
+		if (p == 0) return 0;
+
+		// Halve everyone from the most money to the least (head to the end, then the start to head).
+		double pot;
+		if (compensated) {
+			if (hash) hashState();
+			pot = runCompensated(p);
+		}
+		else if (kernel != RoundKernel.SCALAR) {
+			if (hash) hashState();
+			pot = kernel.halve(money, head, p) + kernel.halve(money, 0, head);
+		}
+		else if (hash) {
+			state_hash = 0;
+			pot = halveAndHash(head, p, 0, 0);
+			pot = halveAndHash(0, head, pot, p - head);
+		}
+		else {
+			pot = halve(head, p, 0);
+			pot = halve(0, head, pot);
+		}
+
+		// The player in last gets the pot.
+		int last = slot(p - 1);
+		if (compensated)
+			addPot(last, pot);
+		else
+			money[last] += pot;
+
+		if (p == 1 || money[last] > money[head]) {
+			// They are now the richest player, so the circle just starts one earlier. (If they tie with the richest
+			// they go after them, so they take the binary search below.)
+			head = last;
+			recipient_position = 0;
+		}
+		else {
+			// Otherwise binary search for the first position with less money than them and shift everyone below down one.
+			double recipient_money = money[last];
+			int recipient = ids[last];
+			Player recipient_source = source != null ? source[last] : null;
+			int lo = 0;
+			int hi = p - 1;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (money[slot(mid)] < recipient_money)
+					hi = mid;
+				else
+					lo = mid + 1;
+			}
+			for (int i = p - 1; i > lo; i--) {
+				int to = slot(i);
+				int from = slot(i - 1);
+				money[to] = money[from];
+				ids[to] = ids[from];
+				if (source != null) source[to] = source[from];
+			}
+			int to = slot(lo);
+			money[to] = recipient_money;
+			ids[to] = recipient;
+			if (source != null) source[to] = recipient_source;
+			recipient_position = lo;
+		}
+		round++;
+		return pot;
+	}
+
+	/**
+	 * Simulate a given number of rounds of the game.
+	 * <p>
+	 * Once the poorest players money bottoms out (see {@linkplain Game#runNRounds(PriorityQueue, int)}), the
+	 * {@code double}s stop changing from one lap of the players to the next, so the table ends up in the exact same
+	 * state every p rounds. Running more rounds after that cannot change anything, so this looks for a repeated state
+	 * and skips straight to the last round once it finds one.
+	 * <p>
+	 * Logic: <br>
+	 * Every round hashes the state (the id and money at each position) in the same loop that halves the money, so it
+	 * costs almost nothing. The hashes are checked for a repeat with Brent's algorithm: the hash is saved at every
+	 * power of two rounds, and each hash after that is compared to the saved one. That finds a cycle of length c that
+	 * starts after round m within O(m + c) rounds, while only ever keeping one hash. A matching hash is then checked
+	 * by saving the whole state, running c more rounds, and comparing the two, so a hash collision can never skip
+	 * anything.
+	 * <p>
+	 * Time: O(min(n, m + c) * p), which for most rosters is a few thousand rounds no matter how big n is <br>
+	 * Space: O(p) once a cycle is found <br>
+	 * where p = number of players, n = number of rounds run, m = rounds until the state repeats, and c = length of
+	 * the cycle (almost always p).
+	 *
+	 * @param rounds Number of rounds to be run
+	 */
+	public void runNRounds(long rounds) {
+		// A cycle is never shorter than it takes everyone to get the pot, so it cannot pay off for short runs.
+		if (rounds <= 4L * money.length) {
+			for (long i = 0; i < rounds; i++)
+				runRound();
+			return;
+		}
+
+		long done = 0;
+		long power = 1;
+		long cycle = 1;
+		long saved = 0;
+		boolean started = false;
+		while (done < rounds) {
+			runRound(true);
+			done++;
+			if (!started) {
+				saved = state_hash;
+				power = cycle = 1;
+				started = true;
+				continue;
+			}
+			if (state_hash == saved) {
+				if (rounds - done < cycle)
+					break;
+				boolean repeats = repeatsAfter(cycle);
+				done += cycle;
+				if (repeats) {
+					// Every lap of the cycle ends in the same state, so only the rounds after the last full lap are run.
+					long skip = (rounds - done) / cycle * cycle;
+					round += skip;
+					skipped_rounds += skip;
+					done += skip;
+					break;
+				}
+				// A hash collision, start looking again.
+				started = false;
+				continue;
+			}
+			if (power == cycle) {
+				saved = state_hash;
+				power *= 2;
+				cycle = 0;
+			}
+			cycle++;
+		}
+		for (; done < rounds; done++)
+			runRound();
+	}
+
+	// Whether running the given number of rounds ends in the exact same state as now.
+	private boolean repeatsAfter(long rounds) {
+		int p = money.length;
+		int[] saved_ids = new int[p];
+		double[] saved_money = new double[p];
+		Player[] saved_source = source == null ? null : new Player[p];
+		for (int i = 0; i < p; i++) {
+			int slot = slot(i);
+			saved_ids[i] = ids[slot];
+			saved_money[i] = money[slot];
+			if (source != null) saved_source[i] = source[slot];
+		}
+		for (long i = 0; i < rounds; i++)
+			runRound();
+		for (int i = 0; i < p; i++) {
+			int slot = slot(i);
+			if (ids[slot] != saved_ids[i] || Double.doubleToRawLongBits(money[slot]) != Double.doubleToRawLongBits(saved_money[i]))
+				return false;
+			if (source != null && source[slot] != saved_source[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return The number of rounds {@linkplain #runNRounds(long)} has skipped over (included in
+	 *         {@linkplain #getRound()}) because the state was repeating
+	 */
+	public long getSkippedRounds() {
+		return skipped_rounds;
+	}
+
+	// Halve every slot in [from, to), adding the halves to the pot.
+	private double halve(int from, int to, double pot) {
+		double pmoney = 0;
+		for (int i = from; i < to; i++) {
+			// Same arithmetic as Game.runRound
+			pmoney = money[i] / 2;
+			money[i] -= pmoney;
+			pot += pmoney;
+		}
+		return pot;
+	}
+
+	// Halve everyone, summing the pot with the rounding error of every add kept in 'error'. Returns the pot with
+	// the error added back.
+	private double runCompensated(int p) {
+		double pot = 0;
+		double error = 0;
+		// Subnormal money is summed on its own, on top of MIN_NORMAL so that every add gives a normal double (an add
+		// that gives a subnormal is many times slower). Up to 2 * MIN_NORMAL every add is exact, and past that it can
+		// only round away a few of the smallest doubles.
+		double tail = Double.MIN_NORMAL;
+		for (int pass = 0; pass < 2; pass++) {
+			int from = pass == 0 ? head : 0;
+			int to = pass == 0 ? p : head;
+			int split = firstSubnormal(from, to);
+			for (int i = from; i < split; i++) {
+				double pmoney = money[i] / 2;
+				money[i] -= pmoney;
+				// The halves go from the biggest to the smallest, so the pot is never smaller than the half being
+				// added, and (pot - t) + pmoney is exactly what the add rounded away.
+				double t = pot + pmoney;
+				error += (pot - t) + pmoney;
+				pot = t;
+			}
+			for (int i = split; i < to; i++) {
+				double pmoney = money[i] / 2;
+				money[i] -= pmoney;
+				tail += pmoney;
+			}
+		}
+		error += tail - Double.MIN_NORMAL;
+		double total = pot + error;
+		// Whatever of the error did not fit in the total is lost.
+		last_drift = error - (total - pot);
+		return total;
+	}
+
+	// The first slot in [from, to) with subnormal money (or to if there is none). The slots are sorted in between.
+	private int firstSubnormal(int from, int to) {
+		if (to == from || money[to - 1] >= Double.MIN_NORMAL) return to;
+		int lo = from;
+		int hi = to - 1;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (money[mid] < Double.MIN_NORMAL)
+				hi = mid;
+			else
+				lo = mid + 1;
+		}
+		return lo;
+	}
+
+	// Give the pot to the slot, adding exactly how much the add rounded away to the drift.
+	private void addPot(int slot, double pot) {
+		double before = money[slot];
+		double after = before + pot;
+		double added_pot = after - before;
+		double added_before = after - added_pot;
+		last_drift += (before - added_before) + (pot - added_pot);
+		drift += last_drift;
+		money[slot] = after;
+	}
+
+	// Hash the state (the same hash as halveAndHash) into state_hash without changing it.
+	private void hashState() {
+		long hash = 0;
+		for (int position = 0; position < money.length; position++) {
+			int i = slot(position);
+			long x = (Double.doubleToRawLongBits(money[i]) + ((long) ids[i] << 32) + position) * 0x9E3779B97F4A7C15L;
+			hash += x ^ (x >>> 29);
+		}
+		state_hash = hash;
+	}
+
+	// Same as halve, while also adding a hash of the id, money, and position of every slot to state_hash.
+	private double halveAndHash(int from, int to, double pot, int position) {
+		double pmoney = 0;
+		long hash = state_hash;
+		for (int i = from; i < to; i++) {
+			long x = (Double.doubleToRawLongBits(money[i]) + ((long) ids[i] << 32) + position++) * 0x9E3779B97F4A7C15L;
+			hash += x ^ (x >>> 29);
+			pmoney = money[i] / 2;
+			money[i] -= pmoney;
+			pot += pmoney;
+		}
+		state_hash = hash;
+		return pot;
+	}
+
+	/**
+	 * Set the money of every player the table was made from to their money in the table.
+	 * Does nothing if the table was not made from a heap.
+	 */
+	public void writeBack() {
+		if (source == null) return;
+		for (int i = 0; i < source.length; i++)
+			source[i].setMoney(money[i]);
+	}
+
+	/**
+	 * Build a max heap of the players in their current state. If the table was made from a heap, these are the
+	 * same players with their money updated.
+	 *
+	 * @return A max heap of players based on the amount of money they have.
+	 */
+	public PriorityQueue<Player> toQueue() {
+		writeBack();
+		PriorityQueue<Player> pq = new PriorityQueue<>(Math.max(1, money.length), new PlayerComp());
+		// Adding from richest to poorest means every add is O(1), as no player ever has to move up the heap.
+		for (int i = 0; i < money.length; i++) {
+			int slot = slot(i);
+			pq.add(source != null ? source[slot] : new Player(ids[slot], money[slot]));
+		}
+		return pq;
+	}
+
+	// The slot of a position
+	private int slot(int position) {
+		int s = head + position;
+		return s >= money.length ? s - money.length : s;
+	}
+
+	// Sort money[lo, hi) from the most to the least, moving order[] along with it.
+	static void sort(double[] money, int[] order, int lo, int hi) {
+		while (hi - lo > 16) {
+			double x = money[lo], y = money[(lo + hi) >>> 1], z = money[hi - 1];
+			double pivot = Math.max(Math.min(x, y), Math.min(Math.max(x, y), z));
+
+			// Three way partition: [lo, lt) has more money than the pivot, [lt, gt) the same, and [gt, hi) less.
+			int lt = lo;
+			int gt = hi;
+			int i = lo;
+			while (i < gt) {
+				if (money[i] > pivot)
+					swap(money, order, lt++, i++);
+				else if (money[i] < pivot)
+					swap(money, order, i, --gt);
+				else
+					i++;
+			}
+			// Recurse on the smaller side so the stack stays O(log(p)).
+			if (lt - lo < hi - gt) {
+				sort(money, order, lo, lt);
+				lo = gt;
+			}
+			else {
+				sort(money, order, gt, hi);
+				hi = lt;
+			}
+		}
+		// Insertion sort for small ranges
+		for (int i = lo + 1; i < hi; i++) {
+			double m = money[i];
+			int o = order[i];
+			int j = i - 1;
+			for (; j >= lo && money[j] < m; j--) {
+				money[j + 1] = money[j];
+				order[j + 1] = order[j];
+			}
+			money[j + 1] = m;
+			order[j + 1] = o;
+		}
+	}
+
+	private static void swap(double[] money, int[] order, int a, int b) {
+		double m = money[a];
+		money[a] = money[b];
+		money[b] = m;
+		int o = order[a];
+		order[a] = order[b];
+		order[b] = o;
+	}
+}
@@ -0,0 +1,24 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event for a call to {@code getWinner}, {@code getMoney}, or {@code getSum}, see
+ * {@linkplain GameMetrics}.
+ */
+@Name("money.Query")
+@Label("Query")
+@Category("Money Game")
+@Description("A winner, money, or sum query")
+class QueryEvent extends Event {
+	@Label("Method")
+	String method;
+
+	@Label("Players")
+	int players;
+
+	@Label("Rounds")
+	long rounds;
+}
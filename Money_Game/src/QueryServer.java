@@ -0,0 +1,306 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class QueryServer {
+	// The most players a generated roster can have, so one query cannot take all the memory.
+	static final int MAX_PLAYERS = 10_000_000;
+	static {
+		// The server writes the headers and the body separately, so with Nagle's algorithm on every answer on a kept
+		// alive connection waits for the client to acknowledge the headers (up to 40 ms). Only read when the first
+		// server is made.
+		if (System.getProperty("sun.net.httpserver.nodelay") == null)
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final RosterCache cache;
+	// Rosters loaded from snapshots, by name. These are never removed.
+	private final ConcurrentHashMap<String, Standings> loaded = new ConcurrentHashMap<>();
+	private final LogHistogram latency = new LogHistogram();
+
+	/**
+	 * A small HTTP server on localhost that answers winner, money and standings queries, so other processes can ask
+	 * without starting a JVM and generating the roster every time (which is seconds per query with {@linkplain RunGame}).
+	 * <p>
+	 * Every roster is kept as {@linkplain Standings} in a {@linkplain RosterCache}, so only the first query for a
+	 * roster has to generate and sort it. After that a query is O(1) for the winner or money, and O(k) for the top k
+	 * standings, and the time goes on HTTP rather than the game. Rosters can also be loaded from a
+	 * {@linkplain Snapshot}, which are kept until the server stops.
+	 * <p>
+	 * Queries (all GET, answered with JSON): <br>
+	 * <ul>
+	 * 	<li> {@code /winner?players=5000&rounds=1079} - the winner and their money </li>
+	 * 	<li> {@code /money?players=5000&rounds=1079&position=3} - the player at a position (0 if not given) and their money </li>
+	 * 	<li> {@code /standings?players=5000&rounds=1079&top=10} - the top players (10 if not given) and their money </li>
+	 * 	<li> {@code /stats} - the number of queries answered, and the p50, p99 and max time to answer them </li>
+	 * </ul>
+	 * A roster is picked with {@code players} (and {@code seed}, 1 if not given) for a generated one, see
+	 * {@linkplain Game#genPlayerQueue(int)}, or {@code roster=name} for one loaded with
+	 * {@code POST /load?name=name&file=path}.
+	 * <p>
+	 * Every query runs on its own virtual thread if the JVM has them (Java 21+), otherwise on a pool with one thread
+	 * per core. The time to answer is measured from when the query is handed to the server to when the answer is
+	 * ready to send, and kept in a {@linkplain LogHistogram}. It is recorded before the answer is sent, so a query
+	 * that comes after it (ie. {@code /stats}) always counts it.
+	 *
+	 * @param port The port to listen on, or 0 for any free port
+	 * @param cache The cache to keep the generated rosters in
+	 * @throws IOException If the port cannot be listened on
+	 */
+	public QueryServer(int port, RosterCache cache) throws IOException {
+		this.cache = cache;
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		executor = MonteCarlo.newExecutor();
+		server.setExecutor(executor);
+		server.createContext("/winner", exchange -> handle(exchange, "GET", this::winner));
+		server.createContext("/money", exchange -> handle(exchange, "GET", this::money));
+		server.createContext("/standings", exchange -> handle(exchange, "GET", this::standings));
+		server.createContext("/load", exchange -> handle(exchange, "POST", this::load));
+		server.createContext("/stats", exchange -> handle(exchange, "GET", query -> stats()));
+	}
+
+	/**
+	 * Start a server from the command line, which runs until the JVM is stopped and then prints the time taken to
+	 * answer the queries.
+	 * <p>
+	 * Usage: {@code java QueryServer [port]} (8080 if not given)
+	 *
+	 * @param args The port
+	 * @throws IOException If the port cannot be listened on
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		QueryServer server = new QueryServer(port, new RosterCache(16));
+		server.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.print(server.report())));
+		System.out.println("Listening on http://localhost:" + server.getPort() + "/");
+	}
+
+	/**
+	 * Start answering queries.
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stop answering queries, waiting up to a second for the ones being answered to finish.
+	 */
+	public void stop() {
+		server.stop(1);
+		executor.shutdown();
+	}
+
+	/**
+	 * @return The port the server is listening on
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * @return The time taken to answer every query so far in nanoseconds
+	 */
+	public LogHistogram getLatency() {
+		return latency;
+	}
+
+	/**
+	 * @return The number of queries answered and how long they took
+	 */
+	public String report() {
+		return String.format("Queries answered = %d%nTime to answer   = %.1f us p50, %.1f us p99, %.1f us max%n",
+				latency.getCount(), latency.getPercentile(0.5) / 1e3, latency.getPercentile(0.99) / 1e3,
+				latency.getMax() / 1e3);
+	}
+
+	// Answer a query, timing it up to when the answer is ready to send (every query gets one, even if it fails).
+	private void handle(HttpExchange exchange, String method, Query query) throws IOException {
+		long start = System.nanoTime();
+		int status = 200;
+		String body;
+		try {
+			if (!exchange.getRequestMethod().equals(method)) {
+				status = 405;
+				body = error("Use " + method);
+			}
+			else {
+				body = query.answer(parse(exchange.getRequestURI().getRawQuery()));
+			}
+		} catch (NotFoundException e) {
+			status = 404;
+			body = error(e.getMessage());
+		} catch (IllegalArgumentException | ArithmeticException e) {
+			// Includes NumberFormatException, and numbers too big for an int
+			status = 400;
+			body = error(e.getMessage());
+		} catch (UncheckedIOException e) {
+			status = 500;
+			body = error(e.getCause().getMessage());
+		} catch (RuntimeException e) {
+			// Otherwise the server would close the connection without an answer.
+			status = 500;
+			body = error(e.toString());
+		}
+
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		// Before sending, as once the client has the answer its next query can be answered before this one returns.
+		latency.record(System.nanoTime() - start);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private String winner(Map<String, String> query) {
+		Standings standings = roster(query);
+		long rounds = getLong(query, "rounds", 0);
+		Player winner = standings.getWinner(rounds);
+		StringBuilder sb = new StringBuilder("{\"rounds\":").append(rounds);
+		if (winner != null)
+			sb.append(",\"id\":").append(winner.getId()).append(",\"name\":").append(quote(winner.getName()))
+					.append(",\"money\":").append(standings.getWinnerMoney(rounds));
+		return sb.append('}').toString();
+	}
+
+	private String money(Map<String, String> query) {
+		Standings standings = roster(query);
+		long rounds = getLong(query, "rounds", 0);
+		int position = Math.toIntExact(getLong(query, "position", 0));
+		if (position < 0 || position >= standings.size())
+			throw new IllegalArgumentException("There is no player at position " + position);
+		int start_rank = standings.getStartRank(position, rounds);
+		Player player = standings.getPlayer(start_rank);
+		return new StringBuilder("{\"rounds\":").append(rounds).append(",\"position\":").append(position)
+				.append(",\"start_rank\":").append(start_rank).append(",\"id\":").append(player.getId())
+				.append(",\"name\":").append(quote(player.getName()))
+				.append(",\"money\":").append(standings.getMoney(start_rank, rounds)).append('}').toString();
+	}
+
+	private String standings(Map<String, String> query) {
+		Standings standings = roster(query);
+		long rounds = getLong(query, "rounds", 0);
+		int top = Math.toIntExact(Math.min(getLong(query, "top", 10), standings.size()));
+		if (top < 0) throw new IllegalArgumentException("top cannot be negative: " + top);
+		int[] ranks = standings.getTopRanks(rounds, top);
+		double[] money = standings.getTopMoney(rounds, top);
+		StringBuilder sb = new StringBuilder("{\"rounds\":").append(rounds).append(",\"sum\":").append(standings.getSum())
+				.append(",\"top\":[");
+		for (int i = 0; i < top; i++) {
+			Player player = standings.getPlayer(ranks[i]);
+			if (i > 0) sb.append(',');
+			sb.append("{\"position\":").append(i).append(",\"id\":").append(player.getId())
+					.append(",\"name\":").append(quote(player.getName())).append(",\"money\":").append(money[i]).append('}');
+		}
+		return sb.append("]}").toString();
+	}
+
+	private String load(Map<String, String> query) {
+		String name = get(query, "name");
+		String file = get(query, "file");
+		Snapshot snapshot;
+		try {
+			snapshot = Snapshot.open(Path.of(file));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		PriorityQueue<Player> player_queue = new PriorityQueue<>(Math.max(1, snapshot.size()), new PlayerComp());
+		for (int i = 0; i < snapshot.size(); i++)
+			player_queue.add(snapshot.getPlayer(i));
+		Standings standings = new Standings(player_queue);
+		loaded.put(name, standings);
+		return "{\"name\":" + quote(name) + ",\"players\":" + standings.size() + ",\"sum\":" + standings.getSum() + "}";
+	}
+
+	private String stats() {
+		return new StringBuilder("{\"queries\":").append(latency.getCount())
+				.append(",\"p50_us\":").append(latency.getPercentile(0.5) / 1e3)
+				.append(",\"p99_us\":").append(latency.getPercentile(0.99) / 1e3)
+				.append(",\"max_us\":").append(latency.getMax() / 1e3)
+				.append(",\"cached_rosters\":").append(cache.size())
+				.append(",\"loaded_rosters\":").append(loaded.size()).append('}').toString();
+	}
+
+	// The roster a query is about, either loaded by name or generated from the number of players and seed.
+	private Standings roster(Map<String, String> query) {
+		String name = query.get("roster");
+		if (name != null) {
+			Standings standings = loaded.get(name);
+			if (standings == null) throw new NotFoundException("No roster called " + name + " has been loaded");
+			return standings;
+		}
+		long players = getLong(query, "players", -1);
+		if (players <= 0 || players > MAX_PLAYERS)
+			throw new IllegalArgumentException("players must be from 1 to " + MAX_PLAYERS + ": " + players);
+		return cache.get(new Game(getLong(query, "seed", 1)), (int) players);
+	}
+
+	// key=value&key=value, decoded
+	private static Map<String, String> parse(String raw_query) {
+		Map<String, String> query = new HashMap<>();
+		if (raw_query == null) return query;
+		for (String pair : raw_query.split("&")) {
+			if (pair.isEmpty()) continue;
+			int eq = pair.indexOf('=');
+			String key = eq < 0 ? pair : pair.substring(0, eq);
+			String value = eq < 0 ? "" : pair.substring(eq + 1);
+			query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+		}
+		return query;
+	}
+
+	private static String get(Map<String, String> query, String key) {
+		String value = query.get(key);
+		if (value == null) throw new IllegalArgumentException("Missing " + key);
+		return value;
+	}
+
+	private static long getLong(Map<String, String> query, String key, long otherwise) {
+		String value = query.get(key);
+		return value == null ? otherwise : Long.parseLong(value);
+	}
+
+	private static String error(String message) {
+		return "{\"error\":" + quote(String.valueOf(message)) + "}";
+	}
+
+	private static String quote(String s) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') sb.append('\\').append(c);
+			else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+			else sb.append(c);
+		}
+		return sb.append('"').toString();
+	}
+
+	// Answers the query with JSON
+	private interface Query {
+		String answer(Map<String, String> query);
+	}
+
+	private static final class NotFoundException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		NotFoundException(String message) {
+			super(message);
+		}
+	}
+}
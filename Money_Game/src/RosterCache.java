@@ -0,0 +1,161 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class RosterCache {
+	private final int capacity;
+	// Access ordered, so the first entry is always the least recently used one. A roster is in here from when it starts
+	// being built, so anyone else who wants it waits for that build rather than starting another.
+	private final LinkedHashMap<Object, CompletableFuture<Standings>> cache;
+
+	/**
+	 * A bounded cache of {@linkplain Standings}, so many queries against the same roster only have to sort it once.
+	 * When the cache is full, the roster that was used the longest time ago is removed.
+	 * <p>
+	 * Rosters are found either by the seed and size they were generated with (see {@linkplain Game#genPlayerQueue(int)},
+	 * which always gives the same heap for the same seed and size), or by the heap itself.
+	 * <p>
+	 * Time for a cached roster = O(1) <br>
+	 * Time for a new roster = O(p log(p)) <br>
+	 * Space = O(c * p) <br>
+	 * where p = number of players, and c = capacity.
+	 * <p>
+	 * Note: this is safe to use from many threads. Each roster is only built once, by the first thread to ask for it,
+	 * and any other threads that ask for it while it is being built wait for that one.
+	 *
+	 * @param capacity The most rosters to keep at once
+	 */
+	public RosterCache(int capacity) {
+		if (capacity <= 0) throw new IllegalArgumentException("Capacity must be > 0: " + capacity);
+		this.capacity = capacity;
+		this.cache = new LinkedHashMap<Object, CompletableFuture<Standings>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Object, CompletableFuture<Standings>> eldest) {
+				return size() > RosterCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Get the standings of the roster generated by {@code game.genPlayerQueue(num_players)}, generating it if needed.
+	 *
+	 * @param game The game, only its seed is used
+	 * @param num_players The number of players in the roster
+	 * @return The standings of the roster
+	 */
+	public Standings get(Game game, int num_players) {
+		return get(new SeedKey(game.getSeed(), num_players), game, num_players, null);
+	}
+
+	/**
+	 * Get the standings of a heap, building them if needed.
+	 * <p>
+	 * The heap is found by identity, not by its contents. The standings are a snapshot of the heap the first time
+	 * it was seen, so if the heap or its players have changed since then, {@linkplain #remove(PriorityQueue)} it first.
+	 *
+	 * @param player_queue The player heap
+	 * @return The standings of the heap
+	 */
+	public Standings get(PriorityQueue<Player> player_queue) {
+		return get(new QueueKey(player_queue), null, 0, player_queue);
+	}
+
+	/**
+	 * Remove a heap from the cache.
+	 *
+	 * @param player_queue The player heap
+	 */
+	public synchronized void remove(PriorityQueue<Player> player_queue) {
+		cache.remove(new QueueKey(player_queue));
+	}
+
+	/**
+	 * @return The number of rosters in the cache, including any being built
+	 */
+	public synchronized int size() {
+		return cache.size();
+	}
+
+	private Standings get(Object key, Game game, int num_players, PriorityQueue<Player> player_queue) {
+		CompletableFuture<Standings> future;
+		boolean build = false;
+		synchronized (this) {
+			future = cache.get(key);
+			if (future == null) {
+				future = new CompletableFuture<>();
+				cache.put(key, future);
+				build = true;
+			}
+		}
+		if (!build) {
+			try {
+				return future.join();
+			} catch (CompletionException e) {
+				// Thrown by the thread that built it, so throw it again as it was.
+				if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+				if (e.getCause() instanceof Error) throw (Error) e.getCause();
+				throw e;
+			}
+		}
+
+		// Build outside the lock so a big roster does not hold up queries for the others.
+		try {
+			if (player_queue == null)
+				player_queue = game.genPlayerQueue(num_players);
+			Standings standings = new Standings(player_queue);
+			future.complete(standings);
+			return standings;
+		} catch (RuntimeException | Error e) {
+			// Do not keep the failure, so the next query tries again.
+			synchronized (this) {
+				cache.remove(key, future);
+			}
+			future.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private static final class SeedKey {
+		private final long seed;
+		private final int num_players;
+
+		SeedKey(long seed, int num_players) {
+			this.seed = seed;
+			this.num_players = num_players;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof SeedKey)) return false;
+			SeedKey k = (SeedKey) o;
+			return seed == k.seed && num_players == k.num_players;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(seed) * 31 + num_players;
+		}
+	}
+
+	private static final class QueueKey {
+		private final PriorityQueue<Player> player_queue;
+
+		QueueKey(PriorityQueue<Player> player_queue) {
+			this.player_queue = player_queue;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof QueueKey && ((QueueKey) o).player_queue == player_queue;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(player_queue);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+public class RosterGenerator {
+	// Number of players each task generates. This never depends on the number of threads.
+	static final int CHUNK_SIZE = 1 << 14;
+	private static final int ROUNDS = 4;
+
+	private final long[] keys = new long[ROUNDS];
+
+	/**
+	 * Generates 'random' money for a roster of players, on every core, where no two players have the same money.
+	 * <p>
+	 * Logic: <br>
+	 * {@linkplain Game#genPlayerQueue(int)} keeps drawing random numbers until it gets one it has not seen before,
+	 * which can only be done one player at a time. Instead, this shuffles all the possible amounts of money
+	 * {@code [0, 10 * p)} with a keyed permutation (a small Feistel network), and gives player i the i'th amount in
+	 * the shuffled order. As it is a permutation no two players can get the same amount, and the money of any player
+	 * can be worked out on its own, so the players are generated in fixed size chunks in parallel.
+	 * <p>
+	 * The keys come from a {@code SplittableRandom} seeded with the seed, so the same seed always gives the same
+	 * roster no matter how many threads are used. It is NOT the same roster as {@linkplain Game#genPlayerQueue(int)}.
+	 * <p>
+	 * Time: O(p / t) <br>
+	 * where p = number of players, and t = number of threads.
+	 *
+	 * @param seed The seed
+	 */
+	public RosterGenerator(long seed) {
+		SplittableRandom rnd = new SplittableRandom(seed);
+		for (int i = 0; i < ROUNDS; i++)
+			keys[i] = rnd.nextLong();
+	}
+
+	/**
+	 * Generate the money of every player, where {@code money[i]} is the money of "Player i".
+	 *
+	 * @param num_players The number of players
+	 * @return The money of every player
+	 */
+	public int[] genMoney(int num_players) {
+		int[] money = new int[num_players];
+		long range = 10L * num_players;
+		int bits = Math.max(2, 64 - Long.numberOfLeadingZeros(Math.max(1, range - 1)));
+		// The Feistel network works on two halves, so it needs an even number of bits.
+		int half_bits = (bits + 1) / 2;
+
+		int chunks = (num_players + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		IntStream.range(0, chunks).parallel().forEach(chunk -> {
+			int end = Math.min(num_players, (chunk + 1) * CHUNK_SIZE);
+			for (int i = chunk * CHUNK_SIZE; i < end; i++)
+				money[i] = (int) permute(i, range, half_bits);
+		});
+		return money;
+	}
+
+	// The position of x in the shuffled order of [0, range).
+	private long permute(long x, long range, int half_bits) {
+		// The network shuffles [0, 2^(2 * half_bits)), which can be up to 4 times bigger than the range. Anything
+		// outside the range is just shuffled again until it lands inside (which keeps it a permutation of the range).
+		do {
+			x = feistel(x, half_bits);
+		} while (x >= range);
+		return x;
+	}
+
+	private long feistel(long x, int half_bits) {
+		long mask = (1L << half_bits) - 1;
+		long left = x >>> half_bits;
+		long right = x & mask;
+		for (long key : keys) {
+			// Multiplicative hash of the right half, keeping the (best mixed) top bits.
+			long next = left ^ (((right ^ key) * 0x9E3779B97F4A7C15L) >>> (64 - half_bits));
+			left = right;
+			right = next;
+		}
+		return (left << half_bits) | right;
+	}
+}
@@ -0,0 +1,88 @@
+import java.util.PriorityQueue;
+
+public class RoundEngine {
+	private final PlayerTable table;
+
+	/**
+	 * A reusable brute-force simulation of the game.
+	 * <p>
+	 * {@linkplain Game#runRound(PriorityQueue)} used to build two new heaps every single round, which means that
+	 * running n rounds allocated O(n * p) heap nodes. This class instead keeps the players in a single
+	 * {@linkplain PlayerTable} that is sorted from the most to the least amount of money, and reuses it for every round.
+	 * <p>
+	 * Logic: <br>
+	 * Halving every players money never changes the order of the players (if a >= b then a/2 >= b/2), so the
+	 * only player that can move in a round is the player in last, who gets the pot. That means a round is just
+	 * <ul>
+	 * 	<li> Halve every player from the top down, summing the halves into the pot (the same order as the heap) </li>
+	 * 	<li> Add the pot to the last player </li>
+	 * 	<li> Move the last player up to wherever they now belong (almost always the very top) </li>
+	 * </ul>
+	 * Because the money is halved and summed in exactly the same order as the heap was, the results are the exact
+	 * same as running the rounds one heap at a time.
+	 * <p>
+	 * Time per round: O(p) <br>
+	 * Space: O(p) once, no allocation per round <br>
+	 * where p = number of players.
+	 * <p>
+	 * Note: just like {@linkplain Game#runRound(PriorityQueue)}, the {@code Player} objects themselves are updated
+	 * (at the end of every call to {@linkplain #runRound()} or {@linkplain #runNRounds(long)}).
+	 *
+	 * @param player_queue The player heap. The heap itself is not changed, only the players inside of it.
+	 */
+	public RoundEngine(PriorityQueue<Player> player_queue) {
+		table = PlayerTable.fromQueue(player_queue);
+	}
+
+	/**
+	 * Simulate a single round of the game.
+	 */
+	public void runRound() {
+		table.runRound();
+		table.writeBack();
+	}
+
+	/**
+	 * Simulate a given number of rounds of the game.
+	 *
+	 * @param rounds Number of rounds to be run
+	 */
+	public void runNRounds(long rounds) {
+		// The players are only updated once at the end, so every round only touches the table.
+		table.runNRounds(rounds);
+		table.writeBack();
+	}
+
+	/**
+	 * @return The number of rounds run so far
+	 */
+	public long getRound() {
+		return table.getRound();
+	}
+
+	/**
+	 * @return The number of players
+	 */
+	public int size() {
+		return table.size();
+	}
+
+	/**
+	 * Obtain the player at a given position, where 0 is the player with the most money.
+	 *
+	 * @param index Position of the player
+	 * @return The player at the specified index, or null if there is none.
+	 */
+	public Player getPlayer(int index) {
+		return table.getPlayer(index);
+	}
+
+	/**
+	 * Build a max heap of the players in their current state.
+	 *
+	 * @return A max heap of players based on the amount of money they have.
+	 */
+	public PriorityQueue<Player> toQueue() {
+		return table.toQueue();
+	}
+}
@@ -0,0 +1,64 @@
+public class RoundEvent {
+	private final long round;
+	private final Player recipient;
+	private final double pot;
+	private final Player leader;
+	private final double sum;
+
+	/**
+	 * A summary of a single round of the game, see {@linkplain RoundFeed}.
+	 *
+	 * @param round The round number (the first round is round 1)
+	 * @param recipient The player that was in last and got the pot, with their money after the round
+	 * @param pot The amount of money in the pot
+	 * @param leader The player with the most money after the round
+	 * @param sum The sum of all players money after the round, or NaN if it was not tracked
+	 */
+	RoundEvent(long round, Player recipient, double pot, Player leader, double sum) {
+		this.round = round;
+		this.recipient = recipient;
+		this.pot = pot;
+		this.leader = leader;
+		this.sum = sum;
+	}
+
+	/**
+	 * @return The round number (the first round is round 1)
+	 */
+	public long getRound() {
+		return round;
+	}
+
+	/**
+	 * @return The player that was in last and got the pot, with their money after the round
+	 */
+	public Player getRecipient() {
+		return recipient;
+	}
+
+	/**
+	 * @return The amount of money in the pot
+	 */
+	public double getPot() {
+		return pot;
+	}
+
+	/**
+	 * @return The player with the most money after the round (almost always the recipient)
+	 */
+	public Player getLeader() {
+		return leader;
+	}
+
+	/**
+	 * @return The sum of all players money after the round, or NaN if it was not tracked
+	 */
+	public double getSum() {
+		return sum;
+	}
+
+	public String toString() {
+		String s = "Round " + round + ": " + recipient + " got " + pot + ", leader " + leader;
+		return Double.isNaN(sum) ? s : s + ", sum " + sum;
+	}
+}
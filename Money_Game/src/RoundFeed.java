@@ -0,0 +1,168 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RoundFeed implements Flow.Publisher<RoundEvent>, Iterable<RoundEvent> {
+	private final PlayerTable table;
+	private final long rounds;
+	private final boolean track_sum;
+	private final Executor executor;
+
+	/**
+	 * A feed of every round of the game, one {@linkplain RoundEvent} per round.
+	 * <p>
+	 * Calling {@linkplain Game#runRound(java.util.PriorityQueue)} over and over copies every player each round just
+	 * to see what happened. Instead this runs the rounds on its own {@linkplain PlayerTable}, and only hands out a
+	 * small summary of each round (who got the pot, how big it was, and who is now in the lead).
+	 * <p>
+	 * Rounds are only run when they are asked for, either one at a time with {@linkplain #iterator()}, or as a
+	 * {@code Flow.Publisher} where the subscriber asks for as many rounds as it wants with
+	 * {@code Subscription.request(n)}. Either way, nothing is run ahead of time and nothing is stored, so following
+	 * a million rounds takes the same amount of memory as following one. Every iterator and every subscriber gets
+	 * its own copy of the table, so they all see the same rounds.
+	 * <p>
+	 * Time per round: O(p), plus O(p) if the sum is tracked <br>
+	 * Space: O(p) per iterator / subscriber <br>
+	 * where p = number of players.
+	 *
+	 * @param table The players to start from. The table is copied, so it is not changed.
+	 * @param rounds The number of rounds in the feed
+	 * @param track_sum Whether to add up the sum of all players money after every round (an extra O(p) per round)
+	 * @param executor The executor subscribers are sent events on
+	 */
+	public RoundFeed(PlayerTable table, long rounds, boolean track_sum, Executor executor) {
+		this.table = table.copy();
+		this.rounds = rounds;
+		this.track_sum = track_sum;
+		this.executor = executor;
+	}
+
+	/**
+	 * Same as {@linkplain #RoundFeed(PlayerTable, long, boolean, Executor)}, sending events on the common pool (or a
+	 * new thread per task if the common pool only has one thread, the same as {@code SubmissionPublisher}). A task
+	 * sends events until the subscriber has had all it asked for, so a subscriber that asks for every round at once
+	 * only ever starts one thread.
+	 *
+	 * @param table The players to start from. The table is copied, so it is not changed.
+	 * @param rounds The number of rounds in the feed
+	 * @param track_sum Whether to add up the sum of all players money after every round
+	 */
+	public RoundFeed(PlayerTable table, long rounds, boolean track_sum) {
+		this(table, rounds, track_sum, ForkJoinPool.getCommonPoolParallelism() > 1
+				? ForkJoinPool.commonPool()
+				: r -> new Thread(r).start());
+	}
+
+	/**
+	 * @return The number of rounds in the feed
+	 */
+	public long getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * Run the rounds one at a time, as they are asked for.
+	 *
+	 * @return An iterator over the rounds, with its own copy of the players.
+	 */
+	@Override
+	public Iterator<RoundEvent> iterator() {
+		PlayerTable t = table.copy();
+		return new Iterator<RoundEvent>() {
+			private long i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return i < rounds && t.size() > 0;
+			}
+
+			@Override
+			public RoundEvent next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				i++;
+				double pot = t.runRound();
+				return new RoundEvent(t.getRound(), t.copyPlayer(t.getRecipientPosition()), pot, t.copyPlayer(0),
+						track_sum ? t.getSum() : Double.NaN);
+			}
+		};
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super RoundEvent> subscriber) {
+		FeedSubscription subscription = new FeedSubscription(subscriber);
+		subscriber.onSubscribe(subscription);
+	}
+
+	// Sends one event for every round requested. Only one thread ever runs the drain loop at a time ('wip' counts the
+	// calls to drain() that have not been handled yet), so the subscriber is never called from two threads at once.
+	private final class FeedSubscription implements Flow.Subscription, Runnable {
+		private final Flow.Subscriber<? super RoundEvent> subscriber;
+		private final Iterator<RoundEvent> events = iterator();
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger wip = new AtomicInteger();
+		private volatile boolean cancelled;
+		private volatile Throwable error;
+
+		FeedSubscription(Flow.Subscriber<? super RoundEvent> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0)
+				error = new IllegalArgumentException("Must request a positive number of rounds: " + n);
+			else
+				demand.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+
+		private void drain() {
+			if (wip.getAndIncrement() == 0)
+				executor.execute(this);
+		}
+
+		@Override
+		public void run() {
+			int missed = 1;
+			do {
+				long requested = demand.get();
+				long sent = 0;
+				while (sent != requested && !cancelled && error == null && events.hasNext()) {
+					try {
+						subscriber.onNext(events.next());
+					} catch (Throwable e) {
+						// The subscriber is broken, so stop sending rather than leave 'wip' up and never drain again.
+						cancelled = true;
+						subscriber.onError(e);
+						return;
+					}
+					sent++;
+				}
+				if (cancelled) return;
+				if (error != null) {
+					cancelled = true;
+					subscriber.onError(error);
+					return;
+				}
+				if (!events.hasNext()) {
+					cancelled = true;
+					subscriber.onComplete();
+					return;
+				}
+				// Long.MAX_VALUE means 'send everything', so it is never counted down.
+				if (sent != 0 && requested != Long.MAX_VALUE)
+					demand.addAndGet(-sent);
+				missed = wip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+public abstract class RoundKernel {
+	/** Halves one player at a time, in order. The same results as the heap always gave. */
+	public static final RoundKernel SCALAR = new Scalar();
+	// The class that uses the Vector API, which is only there if ../vector was compiled (see README).
+	private static final String VECTOR_CLASS = "VectorRoundKernel";
+	private static final RoundKernel VECTOR = loadVector();
+	private static final RoundKernel DEFAULT = forName(System.getProperty("money.kernel", "scalar"));
+
+	private final String name;
+
+	/**
+	 * The inner loop of a round: halve every players money and add the halves up into the pot.
+	 * <p>
+	 * This is the only part of a round that touches every player, so it is where all the time goes in
+	 * {@linkplain PlayerTable#runRound()}. There are two of them:
+	 * <ul>
+	 * 	<li> {@linkplain #SCALAR}: one player at a time, in order. Adding the halves in the same order as the heap
+	 * 	     gives the exact same results as {@linkplain Game#runNRounds(java.util.PriorityQueue, int)} always has. </li>
+	 * 	<li> {@linkplain #vector()}: several players at a time with the Vector API ({@code jdk.incubator.vector}),
+	 * 	     with a separate pot for each lane that are added together at the end. This adds the halves in a different
+	 * 	     order, so the pot can be off from the scalar one in the last bit or so. </li>
+	 * </ul>
+	 * The Vector API is still an incubator module, so the vector kernel is kept out of {@code src} (which has to
+	 * build without any extra flags) in {@code ../vector}, and is only loaded if it was compiled and the JVM was
+	 * started with {@code --add-modules jdk.incubator.vector}. Otherwise {@linkplain #vector()} falls back to
+	 * {@linkplain #SCALAR}.
+	 * <p>
+	 * A table uses {@linkplain #getDefault()} unless told otherwise with {@linkplain PlayerTable#setKernel(RoundKernel)},
+	 * which is chosen with {@code -Dmoney.kernel=scalar} or {@code -Dmoney.kernel=vector}.
+	 *
+	 * @param name The name of the kernel, for {@code -Dmoney.kernel}
+	 */
+	protected RoundKernel(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Halve the money in {@code money[from, to)}, ie) {@code pm = m/2; m -= pm; pot += pm} for every one.
+	 *
+	 * @param money The money of every player
+	 * @param from The first index to halve
+	 * @param to One past the last index to halve
+	 * @return The sum of the halves
+	 */
+	public abstract double halve(double[] money, int from, int to);
+
+	/**
+	 * @return The name of the kernel
+	 */
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	/**
+	 * @return The kernel chosen with {@code -Dmoney.kernel} ({@linkplain #SCALAR} if it was not set)
+	 */
+	public static RoundKernel getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @return The Vector API kernel, or {@linkplain #SCALAR} if it is not available
+	 */
+	public static RoundKernel vector() {
+		return VECTOR != null ? VECTOR : SCALAR;
+	}
+
+	/**
+	 * @return Whether the Vector API kernel was compiled and the JVM has {@code jdk.incubator.vector}
+	 */
+	public static boolean isVectorAvailable() {
+		return VECTOR != null;
+	}
+
+	/**
+	 * @param name "scalar" or "vector"
+	 * @return The kernel with the given name (where "vector" falls back to {@linkplain #SCALAR} if not available)
+	 * @throws IllegalArgumentException If there is no kernel with that name
+	 */
+	public static RoundKernel forName(String name) {
+		switch (name) {
+		case "scalar":
+			return SCALAR;
+		case "vector":
+			return vector();
+		default:
+			throw new IllegalArgumentException("No round kernel called " + name + " (should be scalar or vector)");
+		}
+	}
+
+	private static RoundKernel loadVector() {
+		// In the same package as this class (which is 'money' in the benchmarks).
+		String pkg = RoundKernel.class.getPackageName();
+		try {
+			Class<?> c = Class.forName(pkg.isEmpty() ? VECTOR_CLASS : pkg + "." + VECTOR_CLASS);
+			return (RoundKernel) c.getConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			// Not compiled, or the JVM was started without the jdk.incubator.vector module.
+			return null;
+		}
+	}
+
+	// One player at a time, the same loop as the heap.
+	private static final class Scalar extends RoundKernel {
+		private Scalar() {
+			super("scalar");
+		}
+
+		@Override
+		public double halve(double[] money, int from, int to) {
+			double pot = 0;
+			for (int i = from; i < to; i++) {
+				double pmoney = money[i] / 2;
+				money[i] -= pmoney;
+				pot += pmoney;
+			}
+			return pot;
+		}
+	}
+}
@@ -0,0 +1,172 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+public class RulesRoundEngine {
+	private final GameRules rules;
+	// Players and their money from the most to the least, and the same again to merge the next round into
+	private Player[] players;
+	private double[] money;
+	private Player[] next_players;
+	private double[] next_money;
+	private final double sum;
+	private long round;
+
+	/**
+	 * A brute-force simulation of the game under any {@linkplain GameRules}, to check the formulas in
+	 * {@linkplain GameRules} against (and to get a game to the point where they start being right, see
+	 * {@linkplain Game#getWinner(PriorityQueue, long, GameRules)}).
+	 * <p>
+	 * Logic: <br>
+	 * Taking the same fraction from everyone never changes the order of the players, and the poorest k all get the
+	 * same share of the pot so they stay in the same order too. So after a round the players are two sorted runs, the
+	 * k that got the pot and everyone else, and putting them back in order is a single merge of the two, which is
+	 * O(p) no matter where the recipients end up. (A recipient that ties with a player who did not get the pot goes
+	 * after them, the same as {@linkplain PlayerTable}.)
+	 * <p>
+	 * Nothing is assumed about the game rotating, so this is right for any starting money, but it has all the same
+	 * floating point problems as {@linkplain Game#runNRounds(PriorityQueue, int)}.
+	 * <p>
+	 * Time per round: O(p) <br>
+	 * Space: O(p) <br>
+	 * where p = number of players.
+	 *
+	 * @param player_queue The player heap. Neither the heap nor the players are changed (until {@linkplain #toQueue()}).
+	 * @param rules The rules of the game
+	 * @throws IllegalArgumentException If there are more recipients than players
+	 */
+	public RulesRoundEngine(PriorityQueue<Player> player_queue, GameRules rules) {
+		rules.checkPlayers(player_queue.size());
+		this.rules = rules;
+		players = player_queue.toArray(new Player[0]);
+		Arrays.sort(players, new PlayerComp());
+		money = new double[players.length];
+		for (int i = 0; i < players.length; i++)
+			money[i] = players[i].getMoney();
+		next_players = new Player[players.length];
+		next_money = new double[players.length];
+		sum = CompensatedSum.sum(money);
+	}
+
+	/**
+	 * Simulate a single round of the game.
+	 *
+	 * @return The amount of money in the pot
+	 */
+	public double runRound() {
+		int p = players.length;
+		if (p == 0) return 0;
+		double fraction = rules.getFraction();
+		int k = rules.getRecipients();
+
+		double pot = 0;
+		for (int i = 0; i < p; i++) {
+			double pmoney = money[i] * fraction;
+			money[i] -= pmoney;
+			pot += pmoney;
+		}
+		double share = pot / k;
+		for (int i = p - k; i < p; i++)
+			money[i] += share;
+
+		// Merge the recipients [p - k, p) with everyone else [0, p - k), both from the most money to the least.
+		int a = 0, b = p - k;
+		for (int i = 0; i < p; i++) {
+			int from = b < p && (a == p - k || money[b] > money[a]) ? b++ : a++;
+			next_players[i] = players[from];
+			next_money[i] = money[from];
+		}
+		Player[] swap_players = players;
+		players = next_players;
+		next_players = swap_players;
+		double[] swap_money = money;
+		money = next_money;
+		next_money = swap_money;
+
+		round++;
+		return pot;
+	}
+
+	/**
+	 * Simulate a given number of rounds of the game.
+	 * <p>
+	 * Time: O(n * p) <br>
+	 * where p = number of players, and n = number of rounds run.
+	 *
+	 * @param rounds Number of rounds to be run
+	 */
+	public void runNRounds(long rounds) {
+		for (long i = 0; i < rounds; i++)
+			runRound();
+	}
+
+	/**
+	 * @return Whether the formulas in {@linkplain GameRules} are right from this round on, see
+	 *         {@linkplain GameRules#rotates(int, double, double, double)}
+	 */
+	public boolean rotates() {
+		int p = players.length;
+		return p == 0 || rules.rotates(p, money[0], money[p - 1], sum);
+	}
+
+	/**
+	 * @return The rules of the game
+	 */
+	public GameRules getRules() {
+		return rules;
+	}
+
+	/**
+	 * @return The number of rounds run so far
+	 */
+	public long getRound() {
+		return round;
+	}
+
+	/**
+	 * @return The number of players
+	 */
+	public int size() {
+		return players.length;
+	}
+
+	/**
+	 * @return The sum of all players money before any rounds were run
+	 */
+	public double getSum() {
+		return sum;
+	}
+
+	/**
+	 * Obtain the player at a given position, where 0 is the player with the most money. The players money is not
+	 * changed, see {@linkplain #getMoney(int)}.
+	 *
+	 * @param index Position of the player
+	 * @return The player at the specified index, or null if there is none.
+	 */
+	public Player getPlayer(int index) {
+		if (index < 0 || index >= players.length) return null;
+		return players[index];
+	}
+
+	/**
+	 * @param index Position of the player
+	 * @return The money of the player at the specified index.
+	 */
+	public double getMoney(int index) {
+		return money[index];
+	}
+
+	/**
+	 * Build a max heap of the players, with each players money set to their money in the simulation.
+	 *
+	 * @return A max heap of players based on the amount of money they have.
+	 */
+	public PriorityQueue<Player> toQueue() {
+		PriorityQueue<Player> pq = new PriorityQueue<>(Math.max(1, players.length), new PlayerComp());
+		for (int i = 0; i < players.length; i++) {
+			players[i].setMoney(money[i]);
+			pq.add(players[i]);
+		}
+		return pq;
+	}
+}
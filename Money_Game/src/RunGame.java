@@ -1,6 +1,5 @@
-import java.io.DataOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.PriorityQueue;
 
 public class RunGame {
@@ -12,6 +11,7 @@ public class RunGame {
 		int rounds = 15; // Denoted as n
 		
 		run(players, rounds);
+		//runMany(players, rounds, 100_000);
 	}
 	
 	/**
@@ -25,7 +25,7 @@ public class RunGame {
 		
 		// Note that the generated player queue will always be the exact same.
 		PriorityQueue<Player> pq = game.genPlayerQueue(players);
-		//write(pq, "text2");
+		//write(game, pq, 0, "text2");
 		// BRUTE FORCE
 		System.out.println("\nBrute force method:");
 		System.out.println("--------------------------------------------------------------------");
@@ -52,7 +52,7 @@ public class RunGame {
 		
 		// Get the amount the winner wins
 		start = System.nanoTime();
-		double amt_won = game.getMoney(pq, winner, rounds); // O(n / p) best, worst, expected
+		double amt_won = game.getMoney(pq, winner, rounds); // O(1)
 		end = System.nanoTime();
 		System.out.printf("Time to find money  = %.5f ms\n",(double) (end - start)/1000000 );
 		
@@ -60,26 +60,37 @@ public class RunGame {
 		System.out.println("\nResult:");
 		System.out.printf("The winner after %s rounds is %s with %.10f dollars!\n",rounds, winner.getName(), amt_won);
 		System.out.println("--------------------------------------------------------------------");
+		// Run with -Dmoney.metrics=true to see the counters for everything above.
+		if (GameMetrics.isEnabled())
+			System.out.print("\nMetrics:\n" + GameMetrics.report());
 		
 		// Time expectancy for brute force    : O(n log(n))
 		// Total time expectancy for my method: O(p + n / p)
 	}
 	
-	private static void write(PriorityQueue<Player> pq, String filename) {
+	// Run a game for each of the first 'games' seeds, and print how they turned out. See MonteCarlo.
+	private static void runMany(int players, int rounds, int games) {
+		System.out.printf("Running %s games with %s players and %s rounds:%n", games, players, rounds);
 		try {
-			File f = new File("../" + filename + ".txt");
-			if(!f.exists()) f.createNewFile();
-			
-			FileOutputStream fos = new FileOutputStream(f);
-			DataOutputStream dos = new DataOutputStream(fos);
-			
-			while(!pq.isEmpty()) {
-				String line = pq.poll().toString() + "\n";
-				dos.writeUTF(line);
-			}
+			long start = System.nanoTime();
+			MonteCarlo.Results results = new MonteCarlo(players, rounds).run(0, games);
+			long end = System.nanoTime();
+			System.out.print(results.report());
+			System.out.printf("Total time = %.5f ms%n", (double) (end - start)/1000000);
 		}
-		catch(Exception e) {
-			
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	// Save the queue to a snapshot (without emptying it). Compare two of them with SnapshotDiff.
+	private static void write(Game game, PriorityQueue<Player> pq, long round, String filename) {
+		Path file = Path.of("..", filename + ".snap");
+		try {
+			Snapshot.write(file, pq, game.getSeed(), round);
+		}
+		catch(IOException e) {
+			System.err.println("Could not write " + file + ": " + e);
 		}
 	}
 	
@@ -0,0 +1,36 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event for a call to the brute force method, see {@linkplain GameMetrics}.
+ */
+@Name("money.Simulation")
+@Label("Simulate Rounds")
+@Category("Money Game")
+@Description("Rounds run by the brute force method")
+class SimulationEvent extends Event {
+	@Label("Method")
+	String method;
+
+	@Label("Players")
+	int players;
+
+	@Label("Rounds")
+	long rounds;
+
+	@Label("Skipped Rounds")
+	@Description("Rounds skipped because the state was repeating")
+	long skippedRounds;
+
+	@Label("Allocated")
+	@DataAmount
+	long allocatedBytes;
+
+	@Label("Drift")
+	@Description("How much the sum of all players money changed")
+	double drift;
+}
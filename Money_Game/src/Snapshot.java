@@ -0,0 +1,324 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.PriorityQueue;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+public class Snapshot {
+	// File layout: a header, then every id (int), then every money (double), from the most money to the least. If any
+	// player has a name rather than an id, then a name table: the offset (int) of every name and the end, then the
+	// names in UTF-8 (empty for the players with an id).
+	static final int MAGIC = 0x4D475331; // "MGS1"
+	static final int HEADER_SIZE = 32;
+	// Header fields
+	private static final int MAGIC_AT = 0;
+	private static final int SIZE_AT = 4;
+	private static final int SEED_AT = 8;
+	private static final int ROUND_AT = 16;
+	private static final int NAMES_AT = 24;
+	// Players are written through a buffer of this many bytes.
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final Path file;
+	private final int size;
+	private final long seed;
+	private final long round;
+	private final ByteBuffer ids;
+	private final ByteBuffer money;
+	// The name table, or null if every player has an id
+	private final ByteBuffer names;
+
+	/**
+	 * The state of a game saved to a file: the seed, the round, and the id and money of every player.
+	 * <p>
+	 * The ids are all stored together, followed by all the money, so a file is 12 bytes a player (5000 players is
+	 * 60KB). The file is written through a {@code FileChannel} with a 1MB buffer, and read by mapping it into memory,
+	 * so opening a snapshot does not read anything until a player is asked for, and nothing is ever copied onto
+	 * the heap.
+	 * <p>
+	 * The players are stored by position (0 = most money). The id of a player is the number in their name, ie) id 7 is
+	 * "Player 7". Players made with a name are stored with id -1, and their names are kept in a table at the end of
+	 * the file, which is only there if there are any. See {@linkplain SnapshotDiff} to compare two snapshots.
+	 */
+	private Snapshot(Path file, int size, long seed, long round, ByteBuffer ids, ByteBuffer money, ByteBuffer names) {
+		this.file = file;
+		this.size = size;
+		this.seed = seed;
+		this.round = round;
+		this.ids = ids;
+		this.money = money;
+		this.names = names;
+	}
+
+	// The money block starts on an 8 byte boundary.
+	private static long moneyAt(int size) {
+		return HEADER_SIZE + ((4L * size + 7) & ~7L);
+	}
+
+	/**
+	 * Save a heap of players. Unlike draining the heap, the heap and the players are not changed.
+	 * <p>
+	 * Time: O(p log(p)) (sorting a copy of the heap) <br>
+	 * where p = number of players.
+	 *
+	 * @param file The file to save to. Any existing file is replaced.
+	 * @param player_queue The player heap
+	 * @param seed The seed the players were generated with
+	 * @param round The number of rounds run on the players
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void write(Path file, PriorityQueue<Player> player_queue, long seed, long round) throws IOException {
+		PlayerTable table = PlayerTable.fromQueue(player_queue);
+		write(file, table.size(), seed, round, table::getId, table::getMoney, table::getName);
+	}
+
+	/**
+	 * Save a table of players, including the rounds run on it.
+	 * <p>
+	 * Time: O(p)
+	 *
+	 * @param file The file to save to. Any existing file is replaced.
+	 * @param table The players
+	 * @param seed The seed the players were generated with
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void write(Path file, PlayerTable table, long seed) throws IOException {
+		write(file, table.size(), seed, table.getRound(), table::getId, table::getMoney, table::getName);
+	}
+
+	/**
+	 * Save a roster in a file, including the rounds run on it.
+	 * <p>
+	 * Time: O(p)
+	 *
+	 * @param file The file to save to. Any existing file is replaced.
+	 * @param roster The roster
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void write(Path file, MappedRoster roster) throws IOException {
+		write(file, roster.size(), roster.getSeed(), roster.getRound(), roster::getId, roster::getMoney, null);
+	}
+
+	private static void write(Path file, int size, long seed, long round, IntUnaryOperator id, IntToDoubleFunction money,
+			IntFunction<String> name) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC_AT, MAGIC);
+			buffer.putInt(SIZE_AT, size);
+			buffer.putLong(SEED_AT, seed);
+			buffer.putLong(ROUND_AT, round);
+			buffer.position(HEADER_SIZE);
+
+			boolean named = false;
+			for (int i = 0; i < size; i++) {
+				if (buffer.remaining() < Integer.BYTES) flush(channel, buffer);
+				int player_id = id.applyAsInt(i);
+				named |= player_id < 0;
+				buffer.putInt(player_id);
+			}
+			flush(channel, buffer);
+			if (named && name == null)
+				throw new IllegalArgumentException("Players without an id need a name to be saved");
+			// Pad the ids so the money starts on an 8 byte boundary.
+			channel.position(moneyAt(size));
+			for (int i = 0; i < size; i++) {
+				if (buffer.remaining() < Double.BYTES) flush(channel, buffer);
+				buffer.putDouble(money.applyAsDouble(i));
+			}
+			flush(channel, buffer);
+			if (named)
+				writeNames(channel, buffer, size, id, name);
+		}
+	}
+
+	// The name table, after the money. Only players without an id need their name kept.
+	private static void writeNames(FileChannel channel, ByteBuffer buffer, int size, IntUnaryOperator id,
+			IntFunction<String> name) throws IOException {
+		long names_at = moneyAt(size) + 8L * size;
+		byte[][] bytes = new byte[size][];
+		int end = 0;
+		for (int i = 0; i < size; i++) {
+			bytes[i] = id.applyAsInt(i) < 0 ? name.apply(i).getBytes(StandardCharsets.UTF_8) : new byte[0];
+			end = Math.addExact(end, bytes[i].length);
+		}
+		if (4L * (size + 1) + end > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("The names are too long to save");
+
+		channel.position(names_at);
+		int offset = 0;
+		for (int i = 0; i <= size; i++) {
+			if (buffer.remaining() < Integer.BYTES) flush(channel, buffer);
+			buffer.putInt(offset);
+			if (i < size) offset += bytes[i].length;
+		}
+		for (byte[] b : bytes) {
+			for (int from = 0; from < b.length;) {
+				if (!buffer.hasRemaining()) flush(channel, buffer);
+				int length = Math.min(buffer.remaining(), b.length - from);
+				buffer.put(b, from, length);
+				from += length;
+			}
+		}
+		flush(channel, buffer);
+		// Only now is the table all there, so only now does the header point at it.
+		channel.write(ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, names_at), NAMES_AT);
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Open a snapshot by mapping it into memory.
+	 * <p>
+	 * Time: O(1)
+	 *
+	 * @param file The file the snapshot is saved in
+	 * @return The snapshot
+	 * @throws IOException If the file cannot be read, or is not a snapshot
+	 */
+	public static Snapshot open(Path file) throws IOException {
+		// The mappings stay valid after the channel is closed.
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE)
+				throw new IOException("Not a snapshot file: " + file);
+			ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			int size = header.getInt(SIZE_AT);
+			if (header.getInt(MAGIC_AT) != MAGIC || size < 0 || channel.size() < moneyAt(size) + 8L * size)
+				throw new IOException("Not a snapshot file: " + file);
+			if (8L * size > Integer.MAX_VALUE)
+				throw new IOException("Snapshot is too big to map: " + file);
+
+			ByteBuffer ids = channel.map(MapMode.READ_ONLY, HEADER_SIZE, 4L * size).order(ByteOrder.LITTLE_ENDIAN);
+			ByteBuffer money = channel.map(MapMode.READ_ONLY, moneyAt(size), 8L * size).order(ByteOrder.LITTLE_ENDIAN);
+			ByteBuffer names = null;
+			long names_at = header.getLong(NAMES_AT);
+			if (names_at != 0) {
+				long table_size = 4L * (size + 1);
+				if (names_at < moneyAt(size) + 8L * size || channel.size() < names_at + table_size)
+					throw new IOException("Not a snapshot file: " + file);
+				ByteBuffer offsets = channel.map(MapMode.READ_ONLY, names_at, table_size).order(ByteOrder.LITTLE_ENDIAN);
+				long end = offsets.getInt(4 * size);
+				if (end < 0 || table_size + end > Integer.MAX_VALUE || channel.size() < names_at + table_size + end)
+					throw new IOException("Not a snapshot file: " + file);
+				names = channel.map(MapMode.READ_ONLY, names_at, table_size + end).order(ByteOrder.LITTLE_ENDIAN);
+			}
+			return new Snapshot(file, size, header.getLong(SEED_AT), header.getLong(ROUND_AT), ids, money, names);
+		}
+	}
+
+	/**
+	 * @return The file the snapshot is saved in
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * @return The number of players
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return The seed the players were generated with
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return The number of rounds that had been run
+	 */
+	public long getRound() {
+		return round;
+	}
+
+	/**
+	 * @param position Position of the player, where 0 is the player with the most money
+	 * @return The id of the player at the position
+	 */
+	public int getId(int position) {
+		return ids.getInt(position * Integer.BYTES);
+	}
+
+	/**
+	 * @param position Position of the player, where 0 is the player with the most money
+	 * @return The name of the player at the position, ie) "Player 7" for id 7, or the name they were made with
+	 */
+	public String getName(int position) {
+		int id = getId(position);
+		if (id >= 0 || names == null) return "Player " + id;
+		int from = names.getInt(position * Integer.BYTES);
+		int to = names.getInt((position + 1) * Integer.BYTES);
+		byte[] bytes = new byte[to - from];
+		ByteBuffer b = names.duplicate();
+		b.position((size + 1) * Integer.BYTES + from);
+		b.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param position Position of the player, where 0 is the player with the most money
+	 * @return A new player with the id (or name) and money of the player at the position
+	 */
+	public Player getPlayer(int position) {
+		int id = getId(position);
+		double m = getMoney(position);
+		if (id >= 0 || names == null) return new Player(id, m);
+		return new Player(getName(position), m);
+	}
+
+	/**
+	 * @param position Position of the player, where 0 is the player with the most money
+	 * @return The money of the player at the position
+	 */
+	public double getMoney(int position) {
+		return money.getDouble(position * Double.BYTES);
+	}
+
+	/**
+	 * Time: O(p)
+	 *
+	 * @return The sum of money for all players
+	 */
+	public double getSum() {
+		CompensatedSum sum = new CompensatedSum();
+		for (int i = 0; i < size; i++)
+			sum.add(getMoney(i));
+		return sum.get();
+	}
+
+	/**
+	 * Load the players into a table, to run more rounds on them. Note the rounds in the table start from 0.
+	 * <p>
+	 * Time: O(p), or O(p log(p)) if any player has a name (they are put on a heap so the table keeps the names)
+	 *
+	 * @return The players
+	 */
+	public PlayerTable toTable() {
+		if (names != null) {
+			PriorityQueue<Player> player_queue = new PriorityQueue<>(Math.max(1, size), new PlayerComp());
+			for (int i = 0; i < size; i++)
+				player_queue.add(getPlayer(i));
+			return PlayerTable.fromQueue(player_queue);
+		}
+		int[] id_array = new int[size];
+		double[] money_array = new double[size];
+		ids.asIntBuffer().get(id_array);
+		money.asDoubleBuffer().get(money_array);
+		return new PlayerTable(id_array, money_array);
+	}
+}
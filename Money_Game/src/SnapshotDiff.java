@@ -0,0 +1,120 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class SnapshotDiff {
+	/**
+	 * Compare two snapshots, ie) the same roster after running the brute force method for a different number of
+	 * rounds, or with a different method.
+	 * <p>
+	 * Usage: {@code java SnapshotDiff <before> <after> [n]}
+	 *
+	 * @param args The two snapshot files, and optionally the number of last players to show (default 5)
+	 * @throws IOException If either file cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: java SnapshotDiff <before> <after> [n]");
+			System.exit(2);
+		}
+		int n = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		System.out.print(diff(Snapshot.open(Path.of(args[0])), Snapshot.open(Path.of(args[1])), n));
+	}
+
+	/**
+	 * A report of the differences between two snapshots, the same as {@linkplain InaccuracyDemo} prints: the sum of
+	 * money in each (and how much was lost), the last n players in each, and how many players ended up in a
+	 * different position or with different money.
+	 * <p>
+	 * Players are matched by id, so the two snapshots can be at different rounds. (If the ids are not small and
+	 * unique, ie) the players were made with names, players are matched by position instead.)
+	 * <p>
+	 * Time: O(p + k) <br>
+	 * Space: O(k) <br>
+	 * where p = number of players, and k = the biggest id.
+	 *
+	 * @param before The first snapshot
+	 * @param after The second snapshot
+	 * @param n The number of last players to show
+	 * @return The report
+	 */
+	public static String diff(Snapshot before, Snapshot after, int n) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(describe("Before", before)).append(describe("After ", after));
+
+		double before_sum = before.getSum();
+		double after_sum = after.getSum();
+		sb.append(String.format("  Sum of player money before = %s%n", before_sum));
+		sb.append(String.format("  Sum of player money after  = %s%n", after_sum));
+		sb.append(String.format("  Total accuracy = %.14f%%%n", 100 * (after_sum / before_sum)));
+
+		// Where each id is in the second snapshot
+		int[] position_after = positions(after, before.size());
+		int moved = 0;
+		int changed = 0;
+		int missing = 0;
+		double max_change = 0;
+		int max_change_position = -1;
+		for (int i = 0; i < before.size(); i++) {
+			int j = position_after == null ? (i < after.size() ? i : -1) : positionOf(position_after, before.getId(i));
+			if (j < 0) {
+				missing++;
+				continue;
+			}
+			if (j != i) moved++;
+			double change = Math.abs(after.getMoney(j) - before.getMoney(i));
+			if (change != 0) changed++;
+			if (change > max_change) {
+				max_change = change;
+				max_change_position = i;
+			}
+		}
+		if (position_after == null)
+			sb.append(String.format("  (ids are not unique, so players are matched by position)%n"));
+		sb.append(String.format("  Players in a different position = %d%n", moved));
+		sb.append(String.format("  Players with different money    = %d%n", changed));
+		if (missing > 0)
+			sb.append(String.format("  Players missing after           = %d%n", missing));
+		if (max_change_position >= 0)
+			sb.append(String.format("  Biggest change in money = %s (%s)%n", max_change, before.getName(max_change_position)));
+
+		sb.append(lastN("before", before, n)).append(lastN("after", after, n));
+		return sb.toString();
+	}
+
+	private static String describe(String label, Snapshot snapshot) {
+		return String.format("%s: %s (%d players, seed %d, %d rounds)%n", label, snapshot.getFile(), snapshot.size(),
+				snapshot.getSeed(), snapshot.getRound());
+	}
+
+	private static String lastN(String label, Snapshot snapshot, int n) {
+		StringBuilder sb = new StringBuilder(String.format("%nLast %d players %s:%n", Math.min(n, snapshot.size()), label));
+		for (int i = Math.max(0, snapshot.size() - n); i < snapshot.size(); i++)
+			sb.append(String.format("  %s - %s%n", snapshot.getName(i), snapshot.getMoney(i)));
+		return sb.toString();
+	}
+
+	// The position of every id in the snapshot, or null if the ids cannot be used (negative, too big, or repeated).
+	private static int[] positions(Snapshot snapshot, int other_size) {
+		int max_id = -1;
+		for (int i = 0; i < snapshot.size(); i++) {
+			int id = snapshot.getId(i);
+			if (id < 0) return null;
+			max_id = Math.max(max_id, id);
+		}
+		if (max_id >= 4L * Math.max(snapshot.size(), other_size) + 1024) return null;
+
+		int[] positions = new int[max_id + 1];
+		Arrays.fill(positions, -1);
+		for (int i = 0; i < snapshot.size(); i++) {
+			int id = snapshot.getId(i);
+			if (positions[id] >= 0) return null;
+			positions[id] = i;
+		}
+		return positions;
+	}
+
+	private static int positionOf(int[] positions, int id) {
+		return id >= 0 && id < positions.length ? positions[id] : -1;
+	}
+}
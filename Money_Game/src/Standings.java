@@ -0,0 +1,232 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+public class Standings {
+	// Players by their starting rank (0 = most money before any rounds are run)
+	private final Player[] players;
+	private final double[] start_money;
+	private final double sum;
+
+	/**
+	 * The position and money of every player after any number of rounds, without simulating any rounds.
+	 * <p>
+	 * Logic: <br>
+	 * Just like {@linkplain Game#getWinner(PriorityQueue, long)}, this uses the fact that every round the player in
+	 * last moves to the top and every other player moves down one. So the player that started at rank r will be at
+	 * position {@code (r + n) mod(p)} after n rounds, and the player at position j after n rounds is the player that
+	 * started at rank {@code (j - n mod(p) + p) mod(p)}. The money is calculated the same way as
+	 * {@linkplain Game#getMoney(Player, int, double, long)}, except a player at rank r first gets the pot on round
+	 * {@code p - r} rather than on round {@code n mod(p)}.
+	 * <p>
+	 * Time to build = O(p log(p)) (sorting the players once) <br>
+	 * Time for all standings = O(p) <br>
+	 * Time for the top k = O(k) <br>
+	 * Time for the winner, or the position and money of one player = O(1) <br>
+	 * Time to find the starting rank of a player = O(log(p)) <br>
+	 * Space = O(p) <br>
+	 * where p = number of players in the heap.
+	 * <p>
+	 * The standings are a snapshot: the money of every player is copied when they are built, so changing the heap
+	 * or the players afterwards (ie. by running the brute force method on them) does not change the standings.
+	 * Nothing in the standings ever changes after they are built, so they can be shared between threads and
+	 * kept in a {@linkplain RosterCache}.
+	 *
+	 * @param player_queue The player heap. It is not changed.
+	 */
+	public Standings(PriorityQueue<Player> player_queue) {
+		players = player_queue.toArray(new Player[0]);
+		Arrays.sort(players, new PlayerComp());
+		start_money = new double[players.length];
+		for (int i = 0; i < players.length; i++)
+			start_money[i] = players[i].getMoney();
+		sum = CompensatedSum.sum(start_money);
+	}
+
+	/**
+	 * @return The number of players
+	 */
+	public int size() {
+		return players.length;
+	}
+
+	/**
+	 * @return The sum of all players money
+	 */
+	public double getSum() {
+		return sum;
+	}
+
+	/**
+	 * @param start_rank The rank of the player before any rounds are run (0 = most money)
+	 * @return The player with the given starting rank
+	 */
+	public Player getPlayer(int start_rank) {
+		return players[start_rank];
+	}
+
+	/**
+	 * Find the starting rank of a player with a binary search on their starting money.
+	 *
+	 * @param player A player in the standings, with the same money as when the standings were built
+	 * @return The rank of the player before any rounds are run, or -1 if they are not in the standings
+	 */
+	public int getStartRank(Player player) {
+		double money = player.getMoney();
+		// First rank with money <= the players money (start_money is sorted from most to least)
+		int lo = 0;
+		int hi = start_money.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (start_money[mid] > money)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		// Players with the same money are next to each other
+		for (int i = lo; i < start_money.length && start_money[i] == money; i++)
+			if (players[i] == player)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * @param rounds The number of rounds run
+	 * @return The winning player after the given number of rounds
+	 * @see Game#getWinner(PriorityQueue, long)
+	 */
+	public Player getWinner(long rounds) {
+		if (players.length == 0) return null;
+		return players[getStartRank(0, rounds)];
+	}
+
+	/**
+	 * @param rounds The number of rounds run
+	 * @return The money the winning player will have after the given number of rounds, or NaN if there are no players
+	 * @see Game#getMoney(PriorityQueue, Player, long)
+	 */
+	public double getWinnerMoney(long rounds) {
+		if (players.length == 0) return Double.NaN;
+		return getMoney(getStartRank(0, rounds), rounds);
+	}
+
+	/**
+	 * @param start_rank The rank of the player before any rounds are run
+	 * @param rounds The number of rounds run
+	 * @return The position of the player after the given number of rounds (0 = most money)
+	 * @throws IndexOutOfBoundsException If there is no player with that rank (or no players at all)
+	 */
+	public int getPosition(int start_rank, long rounds) {
+		checkIndex(start_rank);
+		if (rounds <= 0) return start_rank;
+		return (int) ((start_rank + rounds % players.length) % players.length);
+	}
+
+	/**
+	 * @param position The position after the given number of rounds (0 = most money)
+	 * @param rounds The number of rounds run
+	 * @return The starting rank of the player at the given position
+	 * @throws IndexOutOfBoundsException If there is no player at that position (or no players at all)
+	 */
+	public int getStartRank(int position, long rounds) {
+		checkIndex(position);
+		if (rounds <= 0) return position;
+		int p = players.length;
+		return (int) ((position - rounds % p + p) % p);
+	}
+
+	/**
+	 * @param start_rank The rank of the player before any rounds are run
+	 * @param rounds The number of rounds run
+	 * @return The money the player will have after the given number of rounds
+	 */
+	public double getMoney(int start_rank, long rounds) {
+		return Game.getMoney(start_money[start_rank], start_rank, players.length, sum, rounds);
+	}
+
+	/**
+	 * Fill an array with the money a player has after every round in a range, see
+	 * {@linkplain Game#getTrajectory(double, int, int, double, long, double[], int, int)}.
+	 * <p>
+	 * Time: O(l) <br>
+	 * where l = length of the range.
+	 *
+	 * @param start_rank The rank of the player before any rounds are run
+	 * @param first_round The first round in the range
+	 * @param out The array to fill, where {@code out[offset + k]} is the money after round {@code first_round + k}
+	 * @param offset The first index to fill
+	 * @param length The number of rounds in the range
+	 */
+	public void getTrajectory(int start_rank, long first_round, double[] out, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > out.length)
+			throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + length) + ") is outside an array of " + out.length);
+		Game.getTrajectory(start_money[start_rank], start_rank, players.length, sum, first_round, out, offset, length);
+	}
+
+	/**
+	 * Fill the whole array with the money a player has after rounds {@code first_round} to
+	 * {@code first_round + out.length - 1}.
+	 *
+	 * @param start_rank The rank of the player before any rounds are run
+	 * @param first_round The first round in the range
+	 * @param out The array to fill
+	 */
+	public void getTrajectory(int start_rank, long first_round, double[] out) {
+		getTrajectory(start_rank, first_round, out, 0, out.length);
+	}
+
+	/**
+	 * @param rounds The number of rounds run
+	 * @return The position of every player after the given number of rounds, indexed by their starting rank
+	 */
+	public int[] getPositions(long rounds) {
+		int[] positions = new int[players.length];
+		for (int i = 0; i < positions.length; i++)
+			positions[i] = getPosition(i, rounds);
+		return positions;
+	}
+
+	/**
+	 * @param rounds The number of rounds run
+	 * @return The money of every player after the given number of rounds, indexed by their starting rank
+	 */
+	public double[] getMoney(long rounds) {
+		double[] money = new double[players.length];
+		for (int i = 0; i < money.length; i++)
+			money[i] = getMoney(i, rounds);
+		return money;
+	}
+
+	/**
+	 * @param rounds The number of rounds run
+	 * @param k The number of players to return
+	 * @return The starting rank of the k players with the most money after the given number of rounds, from the most money to least
+	 * @throws IllegalArgumentException If k is negative
+	 */
+	public int[] getTopRanks(long rounds, int k) {
+		if (k < 0) throw new IllegalArgumentException("k cannot be negative: " + k);
+		int[] ranks = new int[Math.min(k, players.length)];
+		for (int i = 0; i < ranks.length; i++)
+			ranks[i] = getStartRank(i, rounds);
+		return ranks;
+	}
+
+	/**
+	 * @param rounds The number of rounds run
+	 * @param k The number of players to return
+	 * @return The money of the k players with the most money after the given number of rounds, from the most money to least
+	 * @throws IllegalArgumentException If k is negative
+	 */
+	public double[] getTopMoney(long rounds, int k) {
+		if (k < 0) throw new IllegalArgumentException("k cannot be negative: " + k);
+		double[] money = new double[Math.min(k, players.length)];
+		for (int i = 0; i < money.length; i++)
+			money[i] = getMoney(getStartRank(i, rounds), rounds);
+		return money;
+	}
+
+	// A rank or position, which must be one of the players (so there are none in an empty roster).
+	private void checkIndex(int index) {
+		if (index < 0 || index >= players.length)
+			throw new IndexOutOfBoundsException("There is no player " + index + " in a roster of " + players.length);
+	}
+}
@@ -0,0 +1,174 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class Sweep {
+	private final Game game;
+	private final int[] players;
+	private final long[] rounds;
+
+	/**
+	 * Compares the brute force method to {@linkplain Game#getWinner(java.util.PriorityQueue, long)} and
+	 * {@linkplain Game#getMoney(Player, int, double, long)} for every number of players and rounds in a grid, to find
+	 * where the brute force method breaks (see {@linkplain Game#runNRounds(java.util.PriorityQueue, int)}).
+	 * <p>
+	 * Logic: <br>
+	 * Running every point of the grid on its own means simulating 1 + 2 + ... + n rounds for every number of players.
+	 * Instead, every roster is generated once and simulated forwards once, stopping at every round count in the grid
+	 * (the checkpoints) to compare it to the formulas. Getting to the next checkpoint only runs the rounds in between,
+	 * so a roster costs O(n * p) for ALL of its round counts rather than O(n^2 * p), and any big gaps between
+	 * checkpoints skip the repeating state just like {@linkplain PlayerTable#runNRounds(long)}. The formulas are O(1)
+	 * per point, using the starting standings kept from before the first round.
+	 * <p>
+	 * Rosters are run at the same time (one per core), a batch at a time so only a few rosters worth of rows are ever
+	 * in memory, and written in order.
+	 * <p>
+	 * Time: O(P * n * p / t) <br>
+	 * Space: O(t * (p + r)) <br>
+	 * where P = number of player counts, p = biggest number of players, n = biggest number of rounds, r = number of
+	 * round counts, and t = number of threads.
+	 *
+	 * @param game The game to generate the rosters with, see {@linkplain Game#genPlayerTable(int)}
+	 * @param players The numbers of players (all at least 1)
+	 * @param rounds The numbers of rounds (all at least 1), in any order
+	 */
+	public Sweep(Game game, int[] players, long[] rounds) {
+		for (int p : players)
+			if (p <= 0) throw new IllegalArgumentException("There must be at least one player: " + p);
+		for (long n : rounds)
+			if (n <= 0) throw new IllegalArgumentException("There must be at least one round: " + n);
+		this.game = game;
+		this.players = players.clone();
+		this.rounds = rounds.clone();
+		Arrays.sort(this.rounds);
+	}
+
+	/**
+	 * Run a sweep from the command line.
+	 * <p>
+	 * Usage: {@code java Sweep <players> <rounds> <csv> [heatmap]} <br>
+	 * where players and rounds are ranges {@code from:to} or {@code from:to:step}, ie)
+	 * {@code java Sweep 2:1000 1:10000 sweep.csv heatmap.csv}
+	 *
+	 * @param args The ranges, the file to write every point to, and optionally the file to write the heatmap to
+	 * @throws IOException If either file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.err.println("Usage: java Sweep <players from:to[:step]> <rounds from:to[:step]> <csv> [heatmap]");
+			System.exit(2);
+		}
+		long[] players = parseRange(args[0]);
+		Sweep sweep = new Sweep(new Game(), Arrays.stream(players).mapToInt(Math::toIntExact).toArray(), parseRange(args[1]));
+		long start = System.nanoTime();
+		try (Writer csv = Files.newBufferedWriter(Path.of(args[2]));
+				Writer heatmap = args.length > 3 ? Files.newBufferedWriter(Path.of(args[3])) : null) {
+			sweep.run(csv, heatmap);
+		}
+		System.out.printf("Swept %s points in %.3f s%n", (long) players.length * sweep.rounds.length, (System.nanoTime() - start) / 1e9);
+	}
+
+	/**
+	 * Write a row for every point of the grid to {@code csv}, with the columns: <br>
+	 * {@code players, rounds, agree, brute_winner, formula_winner, brute_money, formula_money, money_error, brute_ns, formula_ns} <br>
+	 * where agree is 1 if both methods give the same winner, money_error is the difference in the winners money as a
+	 * fraction of the sum, brute_ns is the time to simulate every round up to this one (what a brute force run from
+	 * the start would take), and formula_ns is the time to get the winner and their money with the formulas.
+	 * <p>
+	 * If {@code heatmap} is not null, a grid of the agree column is written to it too, with a row for every number of
+	 * players and a column for every number of rounds.
+	 *
+	 * @param csv Where to write every point
+	 * @param heatmap Where to write the heatmap, or null
+	 * @throws IOException If either cannot be written to
+	 */
+	public void run(Writer csv, Writer heatmap) throws IOException {
+		csv.write("players,rounds,agree,brute_winner,formula_winner,brute_money,formula_money,money_error,brute_ns,formula_ns\n");
+		if (heatmap != null) {
+			StringBuilder header = new StringBuilder("players\\rounds");
+			for (long n : rounds)
+				header.append(',').append(n);
+			heatmap.write(header.append('\n').toString());
+		}
+
+		int batch = Runtime.getRuntime().availableProcessors();
+		for (int from = 0; from < players.length; from += batch) {
+			int to = Math.min(players.length, from + batch);
+			Roster[] results = IntStream.range(from, to).parallel().mapToObj(i -> sweep(players[i])).toArray(Roster[]::new);
+			for (Roster roster : results) {
+				csv.write(roster.rows.toString());
+				if (heatmap != null)
+					heatmap.write(roster.heatmap.toString());
+			}
+		}
+		csv.flush();
+		if (heatmap != null)
+			heatmap.flush();
+	}
+
+	// Simulate one roster forwards through every round count.
+	private Roster sweep(int num_players) {
+		Roster roster = new Roster(num_players);
+		PlayerTable table = game.genPlayerTable(num_players);
+		// The standings before the first round, for the formulas
+		PlayerTable start = table.copy();
+		double sum = start.getSum();
+
+		long brute_ns = 0;
+		for (long n : rounds) {
+			long time = System.nanoTime();
+			table.runNRounds(n - table.getRound());
+			brute_ns += System.nanoTime() - time;
+
+			time = System.nanoTime();
+			int rank = (int) ((num_players - n % num_players) % num_players);
+			int formula_winner = start.getId(rank);
+			double formula_money = Game.getMoney(start.getMoney(rank), rank, num_players, sum, n);
+			long formula_ns = System.nanoTime() - time;
+
+			int brute_winner = table.getId(0);
+			double brute_money = table.getMoney(0);
+			int agree = brute_winner == formula_winner ? 1 : 0;
+			roster.rows.append(num_players).append(',').append(n).append(',').append(agree).append(',')
+					.append(brute_winner).append(',').append(formula_winner).append(',')
+					.append(brute_money).append(',').append(formula_money).append(',')
+					.append(Math.abs(brute_money - formula_money) / sum).append(',')
+					.append(brute_ns).append(',').append(formula_ns).append('\n');
+			roster.heatmap.append(',').append(agree);
+		}
+		roster.heatmap.append('\n');
+		return roster;
+	}
+
+	/**
+	 * @param range {@code from:to} or {@code from:to:step}, including both ends
+	 * @return Every number in the range
+	 */
+	static long[] parseRange(String range) {
+		String[] parts = range.split(":");
+		if (parts.length < 2 || parts.length > 3)
+			throw new IllegalArgumentException("A range must be from:to or from:to:step: " + range);
+		long from = Long.parseLong(parts[0]);
+		long to = Long.parseLong(parts[1]);
+		long step = parts.length == 3 ? Long.parseLong(parts[2]) : 1;
+		if (step <= 0 || to < from)
+			throw new IllegalArgumentException("A range must go up by at least 1: " + range);
+		long[] values = new long[Math.toIntExact((to - from) / step + 1)];
+		for (int i = 0; i < values.length; i++)
+			values[i] = from + i * step;
+		return values;
+	}
+
+	// The rows of one roster, waiting to be written
+	private static final class Roster {
+		private final StringBuilder rows = new StringBuilder();
+		private final StringBuilder heatmap;
+
+		private Roster(int num_players) {
+			heatmap = new StringBuilder().append(num_players);
+		}
+	}
+}
@@ -1,7 +1,33 @@
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -72,6 +98,29 @@ class test_game {
 		assertTrue(index_equals_d);
 	}
 	
+	/**
+	 * Check that selecting many indices at once gives the same players as polling the heap. <br>
+	 * Why: {@link Game#getWinners(PriorityQueue, long[])} resolves every winner index in a single pass.
+	 */
+	@Test
+	void test_select_many_indices() {
+		int queue_size = 200;
+		PriorityQueue<Player> player_queue = game.genPlayerQueue(queue_size);
+		long[] rounds = new long[50];
+		for (int i = 0; i < rounds.length; i++)
+			rounds[i] = rnd.nextLong(0, 1_000_000);
+		
+		Player[] winners = game.getWinners(player_queue, rounds);
+		
+		for (int i = 0; i < rounds.length; i++)
+			assertTrue( winners[i].equals(game.getWinner(player_queue, rounds[i])) );
+		
+		PriorityQueue<Player> pq_clone = new PriorityQueue<>(player_queue);
+		PlayerSelect select = new PlayerSelect(player_queue);
+		for (int i = 0; i < queue_size; i++)
+			assertTrue( pq_clone.poll().equals(select.select(i)) );
+	}
+	
 	/**
 	 * Check that two queues of equal size are equivalent if generated back-to-back <br>
 	 * Why: To show that our next tests will be correct regardless of queue generation
@@ -113,6 +162,31 @@ class test_game {
 		}
 	}
 
+	/**
+	 * Check that the parallel generator gives every player a different amount of money, and the exact same money
+	 * no matter how many threads are used. <br>
+	 * Why: {@link Game#genPlayerQueueParallel(int)} should be just as repeatable as {@link Game#genPlayerQueue(int)}.
+	 */
+	@Test
+	void test_generate_parallel() throws Exception {
+		int queue_size = 5 * RosterGenerator.CHUNK_SIZE + 3;
+		RosterGenerator generator = new RosterGenerator(1);
+		int[] money_1 = new ForkJoinPool(1).submit(() -> generator.genMoney(queue_size)).get();
+		int[] money_4 = new ForkJoinPool(4).submit(() -> generator.genMoney(queue_size)).get();
+		
+		assertArrayEquals(money_1, money_4);
+		boolean[] seen = new boolean[10 * queue_size];
+		for (int money : money_1) {
+			assertFalse(seen[money]);
+			seen[money] = true;
+		}
+		
+		PriorityQueue<Player> player_queue_1 = game.genPlayerQueueParallel(27);
+		PriorityQueue<Player> player_queue_2 = game.genPlayerQueueParallel(27);
+		for (int i = 0; i < 27; i++)
+			assertTrue( player_queue_1.poll().equals(player_queue_2.poll()) );
+	}
+	
 	@Test
 	void test_brute_run_one_round() {
 		PriorityQueue<Player> player_queue = new PriorityQueue<>(new PlayerComp());
@@ -158,6 +232,784 @@ class test_game {
 		assertTrue( winner.getName().equals("a") );
 	}
 	
+	/**
+	 * Check that the round engine gives the same money as the example in the {@link Game} documentation. <br>
+	 * Why: {@link Game#runNRounds(PriorityQueue, int)} uses the engine to simulate every round.
+	 */
+	@Test
+	void test_round_engine_example() {
+		PriorityQueue<Player> player_queue = new PriorityQueue<>(new PlayerComp());
+		
+		Player a = new Player("a", 0);
+		Player b = new Player("b", 1);
+		Player c = new Player("c", 2);
+		player_queue.add(a);
+		player_queue.add(b);
+		player_queue.add(c);
+		
+		RoundEngine engine = new RoundEngine(player_queue);
+		engine.runNRounds(3);
+		
+		assertEquals(engine.getRound(), 3);
+		assertEquals(a.getMoney(), 0.375);
+		assertEquals(b.getMoney(), 0.875);
+		assertEquals(c.getMoney(), 1.75);
+		assertTrue( engine.getPlayer(0).equals(c) );
+		assertTrue( engine.getPlayer(2).equals(a) );
+	}
+	
+	/**
+	 * Check that the parallel brute force method gives the exact same money no matter how many threads it uses,
+	 * and the same winner as the normal brute force method, and puts a recipient that ties with the richest after them
+	 * like {@link PlayerTable}. <br>
+	 * Why: {@link ParallelRoundEngine} adds the pot up in chunks that should not depend on the number of threads.
+	 */
+	@Test
+	void test_parallel_rounds() {
+		int queue_size = 3 * ParallelRoundEngine.CHUNK_SIZE + 7;
+		int rounds = 20;
+		ParallelRoundEngine engine_1 = new ParallelRoundEngine(game.genPlayerQueue(queue_size), new ForkJoinPool(1));
+		ParallelRoundEngine engine_4 = new ParallelRoundEngine(game.genPlayerQueue(queue_size), new ForkJoinPool(4));
+		engine_1.runNRounds(rounds);
+		engine_4.runNRounds(rounds);
+		
+		for (int i = 0; i < queue_size; i++) {
+			assertEquals(engine_1.getPlayer(i).getName(), engine_4.getPlayer(i).getName());
+			assertEquals(engine_1.getMoney(i), engine_4.getMoney(i));
+		}
+		Player winner_brute = game.runNRounds(game.genPlayerQueue(queue_size), rounds).peek();
+		assertEquals(winner_brute.getName(), engine_1.getPlayer(0).getName());
+		
+		// After one round the richest has 2 and the last player gets a pot of 2.
+		PriorityQueue<Player> tie_queue = new PriorityQueue<>(new PlayerComp());
+		tie_queue.add(new Player(0, 4));
+		tie_queue.add(new Player(1, 0));
+		tie_queue.add(new Player(2, 0));
+		ParallelRoundEngine tie_engine = new ParallelRoundEngine(tie_queue);
+		tie_engine.runRound();
+		assertEquals("Player 0", tie_engine.getPlayer(0).getName());
+		assertEquals(2, tie_engine.getMoney(1));
+	}
+	
+	/**
+	 * Check that a player table gives the same winner, money, and sum as the heap, and that running rounds on it
+	 * gives the exact same players as the brute force method on the heap. <br>
+	 * Why: {@link PlayerTable} stores the players as arrays, and the heap methods now run on one.
+	 */
+	@Test
+	void test_player_table() {
+		int queue_size = 1000;
+		int rounds = 1079;
+		PriorityQueue<Player> player_queue = game.genPlayerQueue(queue_size);
+		PlayerTable table = game.genPlayerTable(queue_size);
+		
+		assertEquals(game.getSum(player_queue), game.getSum(table));
+		for (int i = 0; i < 50; i++) {
+			long n = rnd.nextInt(1, 5000);
+			Player winner = game.getWinner(player_queue, n);
+			assertTrue( winner.equals(game.getWinner(table, n)) );
+			assertEquals(game.getMoney(player_queue, winner, n), game.getMoney(table, n));
+		}
+		
+		game.runNRounds(table, rounds);
+		PriorityQueue<Player> player_queue_brute = game.runNRounds(player_queue, rounds);
+		assertEquals(rounds, table.getRound());
+		for (int i = 0; i < queue_size; i++) {
+			Player p = player_queue_brute.poll();
+			assertEquals(p.getName(), table.getName(i));
+			assertEquals(p.getMoney(), table.getMoney(i));
+		}
+	}
+	
+	/**
+	 * Check that the round feed gives the same recipient, pot, and leader as running the rounds one at a time, and
+	 * that a subscriber asking for one round at a time gets the exact same rounds as the iterator, and that a
+	 * subscriber that throws is sent the error and nothing else. <br>
+	 * Why: {@link RoundFeed} only sends a summary of each round, and only runs the rounds that are asked for.
+	 */
+	@Test
+	void test_round_feed() throws Exception {
+		int queue_size = 50;
+		int rounds = 120;
+		PriorityQueue<Player> player_queue = game.genPlayerQueue(queue_size);
+		RoundFeed feed = game.streamRounds(player_queue, rounds, true);
+		double sum = game.getSum(player_queue);
+		
+		List<RoundEvent> events = new ArrayList<>();
+		RoundEngine engine = new RoundEngine(player_queue);
+		for (RoundEvent event : feed) {
+			String last = engine.getPlayer(queue_size - 1).getName();
+			engine.runRound();
+			assertEquals(engine.getRound(), event.getRound());
+			assertEquals(last, event.getRecipient().getName());
+			assertEquals(engine.getPlayer(0).getName(), event.getLeader().getName());
+			assertEquals(engine.getPlayer(0).getMoney(), event.getLeader().getMoney());
+			assertEquals(sum, event.getSum(), 1e-6);
+			events.add(event);
+		}
+		assertEquals(rounds, events.size());
+		
+		List<RoundEvent> received = new ArrayList<>();
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		feed.subscribe(new Flow.Subscriber<RoundEvent>() {
+			private Flow.Subscription subscription;
+			public void onSubscribe(Flow.Subscription subscription) {
+				this.subscription = subscription;
+				subscription.request(1);
+			}
+			public void onNext(RoundEvent event) {
+				received.add(event);
+				subscription.request(1);
+			}
+			public void onError(Throwable error) {
+				done.completeExceptionally(error);
+			}
+			public void onComplete() {
+				done.complete(null);
+			}
+		});
+		done.get(10, TimeUnit.SECONDS);
+		assertEquals(rounds, received.size());
+		for (int i = 0; i < rounds; i++) {
+			assertEquals(events.get(i).getRecipient().getName(), received.get(i).getRecipient().getName());
+			assertEquals(events.get(i).getPot(), received.get(i).getPot());
+		}
+		
+		RuntimeException thrown = new RuntimeException("Broken subscriber");
+		AtomicInteger calls = new AtomicInteger();
+		CompletableFuture<Flow.Subscription> failed = new CompletableFuture<>();
+		feed.subscribe(new Flow.Subscriber<RoundEvent>() {
+			private Flow.Subscription subscription;
+			public void onSubscribe(Flow.Subscription subscription) {
+				this.subscription = subscription;
+				subscription.request(5);
+			}
+			public void onNext(RoundEvent event) {
+				calls.incrementAndGet();
+				throw thrown;
+			}
+			public void onError(Throwable error) {
+				if (error == thrown)
+					failed.complete(subscription);
+				else
+					failed.completeExceptionally(error);
+			}
+			public void onComplete() {
+				failed.completeExceptionally(new AssertionError("Completed after throwing"));
+			}
+		});
+		// Asking again after the error sends nothing more.
+		failed.get(10, TimeUnit.SECONDS).request(5);
+		assertEquals(1, calls.get());
+	}
+	
+	/**
+	 * Check that players joining, leaving, and depositing between rounds gives the same winner and money as
+	 * building a new heap with the same players and running the brute force method on it. <br>
+	 * Why: {@link DynamicRoster} changes the players in place instead of rebuilding the heap.
+	 */
+	@Test
+	void test_dynamic_roster() {
+		int queue_size = 200;
+		PriorityQueue<Player> player_queue = game.genPlayerQueue(queue_size);
+		DynamicRoster roster = new DynamicRoster(player_queue);
+		assertEquals(game.getSum(player_queue), roster.getSum());
+		for (int i = 0; i < 20; i++) {
+			long n = rnd.nextInt(1, 5000);
+			Player winner = game.getWinner(player_queue, n);
+			assertTrue( winner == roster.getWinner(n) );
+			assertEquals(game.getMoney(player_queue, winner, n), roster.getWinnerMoney(n), 1e-6);
+		}
+		
+		for (int step = 0; step < 30; step++) {
+			int rounds = rnd.nextInt(0, 2 * roster.size());
+			PriorityQueue<Player> brute = game.runNRounds(queue(roster), rounds);
+			roster.runNRounds(rounds);
+			for (int i = 0; i < roster.size(); i++) {
+				Player p = brute == null ? null : brute.poll();
+				if (p == null) break;
+				double money = p.getMoney();
+				assertTrue( p == roster.getPlayer(i) );
+				assertEquals(money, p.getMoney(), 1e-9 * roster.getSum());
+			}
+			
+			// Someone new joins, someone leaves, and someone tops up.
+			roster.join(new Player("new " + step, rnd.nextInt(0, 5000)));
+			Player leaving = roster.getPlayer(rnd.nextInt(0, roster.size()));
+			double money = roster.getMoney(leaving);
+			assertTrue( roster.leave(leaving) );
+			assertFalse( roster.leave(leaving) );
+			assertEquals(money, leaving.getMoney());
+			Player depositor = roster.getPlayer(rnd.nextInt(0, roster.size()));
+			roster.deposit(depositor, 1000);
+			assertEquals(queue_size, roster.size());
+			assertEquals(game.getSum(queue(roster)), roster.getSum(), 1e-6);
+			for (int i = 1; i < roster.size(); i++)
+				assertTrue( roster.getPlayer(i - 1).getMoney() >= roster.getPlayer(i).getMoney() );
+		}
+	}
+	
+	// A new heap with the players in a dynamic roster, with their current money.
+	private PriorityQueue<Player> queue(DynamicRoster roster) {
+		PriorityQueue<Player> pq = new PriorityQueue<>(new PlayerComp());
+		for (int i = 0; i < roster.size(); i++)
+			pq.add(roster.getPlayer(i));
+		return pq;
+	}
+	
+	/**
+	 * Check that the money of a player over a range of rounds is the same as running the brute force method one round
+	 * at a time, and the same as the money formula far past where brute force works. <br>
+	 * Why: {@link Standings#getTrajectory(int, long, double[])} fills the whole range without running any rounds.
+	 */
+	@Test
+	void test_trajectory() {
+		int queue_size = 50;
+		int rounds = 300;
+		PriorityQueue<Player> player_queue = game.genPlayerQueue(queue_size);
+		Standings standings = game.getStandings(player_queue);
+		int rank = 17;
+		Player player = standings.getPlayer(rank);
+		
+		double[] trajectory = new double[rounds + 1];
+		standings.getTrajectory(rank, 0, trajectory);
+		RoundEngine engine = new RoundEngine(player_queue);
+		assertEquals(player.getMoney(), trajectory[0]);
+		for (int i = 1; i <= rounds; i++) {
+			engine.runRound();
+			assertEquals(player.getMoney(), trajectory[i], 1e-9 * standings.getSum());
+		}
+		
+		long first_round = 1_000_000_000L;
+		standings.getTrajectory(rank, first_round, trajectory, 1, rounds);
+		for (int i = 0; i < rounds; i++)
+			assertEquals(standings.getMoney(rank, first_round + i), trajectory[i + 1], 1e-9 * standings.getSum());
+	}
+	
+	/**
+	 * Check that running a lot of rounds on a table that skips repeated states gives the exact same players as
+	 * running every round, and that a billion rounds still gives the same winner as my method. <br>
+	 * Why: {@link PlayerTable#runNRounds(long)} jumps to the last round once the state starts repeating.
+	 */
+	@Test
+	void test_cycle_skip() {
+		int queue_size = 100;
+		long rounds = 50L * queue_size + 12345;
+		PlayerTable table = game.genPlayerTable(queue_size);
+		PlayerTable table_slow = game.genPlayerTable(queue_size);
+		table.runNRounds(rounds);
+		for (long i = 0; i < rounds; i++)
+			table_slow.runRound();
+		assertTrue(table.getSkippedRounds() > 0);
+		assertEquals(rounds, table.getRound());
+		for (int i = 0; i < queue_size; i++) {
+			assertEquals(table_slow.getId(i), table.getId(i));
+			assertEquals(table_slow.getMoney(i), table.getMoney(i));
+		}
+		
+		rounds = 1_000_000_000L;
+		PlayerTable table_long = game.genPlayerTable(queue_size);
+		table_long.runNRounds(rounds);
+		assertEquals(rounds, table_long.getRound());
+		assertEquals(game.getWinner(game.genPlayerQueue(queue_size), rounds).getName(), table_long.getName(0));
+	}
+	
+	/**
+	 * Check that the counters count every round, heap operation, and call when they are on, and nothing when off. <br>
+	 * Why: {@link GameMetrics} is meant to be left in, so it has to be right when on and do nothing when off.
+	 */
+	@Test
+	void test_metrics() {
+		int queue_size = 100;
+		int rounds = 37;
+		PriorityQueue<Player> player_queue = game.genPlayerQueue(queue_size);
+		GameMetrics.reset();
+		GameMetrics.setEnabled(true);
+		try {
+			game.runNRounds(player_queue, rounds);
+			game.runRound(player_queue);
+			Player winner = game.getWinner(player_queue, rounds);
+			game.getMoney(player_queue, winner, rounds);
+			game.getSum(player_queue);
+			
+			assertEquals(rounds + 1, GameMetrics.getRounds());
+			// Two new heaps, plus polling every player for the sum twice.
+			assertEquals(4 * queue_size, GameMetrics.getHeapOperations());
+			assertEquals(1, GameMetrics.RUN_N_ROUNDS.getCalls());
+			assertEquals(1, GameMetrics.RUN_ROUND.getCalls());
+			assertEquals(1, GameMetrics.GET_WINNER.getCalls());
+			assertEquals(1, GameMetrics.GET_MONEY.getCalls());
+			assertEquals(1, GameMetrics.GET_SUM.getCalls());
+			assertTrue(GameMetrics.getMaxDrift() >= 0);
+			
+			// A one round run is still a run of n rounds, and each kind of run has its own latency.
+			game.runNRounds(player_queue, 1);
+			game.runNRoundsCompensated(player_queue, 1);
+			assertEquals(2, GameMetrics.RUN_N_ROUNDS.getCalls());
+			assertEquals(1, GameMetrics.RUN_N_ROUNDS_COMPENSATED.getCalls());
+			assertEquals(1, GameMetrics.RUN_ROUND.getCalls());
+		} finally {
+			GameMetrics.setEnabled(false);
+		}
+		game.runNRounds(player_queue, rounds);
+		game.getSum(player_queue);
+		assertEquals(rounds + 3, GameMetrics.getRounds());
+		assertEquals(1, GameMetrics.GET_SUM.getCalls());
+		GameMetrics.reset();
+	}
+	
+	/**
+	 * Check that a snapshot keeps every player in order (and the names of players made with one), and that the diff
+	 * counts the players that changed. <br>
+	 * Why: {@link Snapshot} replaced {@code RunGame.write}, which emptied the heap it was saving.
+	 */
+	@Test
+	void test_snapshot() throws IOException {
+		int queue_size = 100;
+		int rounds = 37;
+		Path before_file = Files.createTempFile("before", ".snap");
+		Path after_file = Files.createTempFile("after", ".snap");
+		// Mapped files cannot be deleted while mapped on some systems, so leave them until the end.
+		before_file.toFile().deleteOnExit();
+		after_file.toFile().deleteOnExit();
+		
+		PriorityQueue<Player> player_queue = game.genPlayerQueue(queue_size);
+		Snapshot.write(before_file, player_queue, game.getSeed(), 0);
+		assertEquals(queue_size, player_queue.size());
+		
+		Snapshot before = Snapshot.open(before_file);
+		assertEquals(queue_size, before.size());
+		assertEquals(game.getSeed(), before.getSeed());
+		assertEquals(0, before.getRound());
+		assertEquals(game.getSum(player_queue), before.getSum());
+		
+		PlayerTable table = before.toTable();
+		table.runNRounds(rounds);
+		Snapshot.write(after_file, table, game.getSeed());
+		Snapshot after = Snapshot.open(after_file);
+		assertEquals(rounds, after.getRound());
+		
+		PriorityQueue<Player> player_queue_brute = game.runNRounds(player_queue, rounds);
+		for (int i = 0; i < queue_size; i++) {
+			Player p = player_queue_brute.poll();
+			assertEquals(p.getName(), "Player " + after.getId(i));
+			assertEquals(p.getMoney(), after.getMoney(i));
+		}
+		
+		String diff = SnapshotDiff.diff(before, after, 3);
+		assertTrue(diff.contains("Players with different money    = " + queue_size));
+		assertTrue(diff.contains("Last 3 players after:"));
+		assertTrue(SnapshotDiff.diff(after, after, 3).contains("Players in a different position = 0"));
+		
+		Path named_file = Files.createTempFile("named", ".snap");
+		named_file.toFile().deleteOnExit();
+		PriorityQueue<Player> named_queue = new PriorityQueue<>(new PlayerComp());
+		named_queue.add(new Player("Alice", 30));
+		named_queue.add(new Player(7, 20));
+		named_queue.add(new Player("Bj\u00f6rn", 10));
+		Snapshot.write(named_file, named_queue, game.getSeed(), 0);
+		Snapshot named = Snapshot.open(named_file);
+		assertEquals("Alice", named.getName(0));
+		assertEquals("Player 7", named.getName(1));
+		assertEquals(7, named.getPlayer(1).getId());
+		assertEquals("Bj\u00f6rn", named.getPlayer(2).getName());
+		assertEquals("Alice", named.toTable().getName(0));
+		assertTrue(SnapshotDiff.diff(named, named, 3).contains("Alice - 30.0"));
+	}
+	
+	/**
+	 * Check that summing the pot with compensation keeps the sum of all players money, without changing the order, and
+	 * that standings and a roster players join and leave keep their sums exact too. <br>
+	 * Why: Adding the halves one after the other rounds away money every round, see {@link InaccuracyDemo}.
+	 */
+	@Test
+	void test_compensated_sum() {
+		// 1 is rounded away when added to 1e16, so a normal sum gives 0.
+		assertEquals(1, CompensatedSum.sum(new double[] { 1e16, 1, -1e16 }));
+		
+		int queue_size = 1000;
+		int rounds = 500;
+		PriorityQueue<Player> player_queue = game.genPlayerQueue(queue_size);
+		double sum = game.getSum(player_queue);
+		PlayerTable naive = PlayerTable.fromQueue(player_queue);
+		PlayerTable table = naive.copy();
+		table.setCompensated(true);
+		assertTrue(Double.isNaN(naive.getDrift()));
+		
+		naive.runNRounds(rounds);
+		table.runNRounds(rounds);
+		assertNotEquals(sum, naive.getSum());
+		assertEquals(sum, table.getSum());
+		assertEquals(0, table.getDrift(), 1e-9);
+		for (int i = 0; i < queue_size; i++)
+			assertEquals(naive.getId(i), table.getId(i));
+		
+		Player winner = game.getWinner(player_queue, rounds);
+		assertEquals(winner.getName(), game.runNRoundsCompensated(player_queue, rounds).peek().getName());
+		
+		// Each 1 is rounded away when added to 1e16 (the gap between doubles there is 2), so a normal sum loses both.
+		PriorityQueue<Player> big_queue = new PriorityQueue<>(new PlayerComp());
+		Player big = new Player(0, 1e16);
+		big_queue.add(big);
+		big_queue.add(new Player(1, 1));
+		big_queue.add(new Player(2, 1));
+		assertEquals(1e16 + 2, new Standings(big_queue).getSum());
+		DynamicRoster roster = new DynamicRoster();
+		roster.join(big);
+		roster.join(new Player(1, 1));
+		roster.join(new Player(2, 1));
+		assertEquals(1e16 + 2, roster.getSum());
+		roster.leave(big);
+		assertEquals(2, roster.getSum());
+	}
+	
+	/**
+	 * Check that running a batch of seeded games gives the same winners as running each game on its own. <br>
+	 * Why: {@link MonteCarlo} runs the games at the same time, reusing the same tables from one game to the next.
+	 */
+	@Test
+	void test_monte_carlo() throws InterruptedException {
+		int queue_size = 10;
+		int rounds = 15;
+		int games = 500;
+		MonteCarlo.Results results = new MonteCarlo(queue_size, rounds).run(100, games);
+		
+		double min_share = Double.POSITIVE_INFINITY;
+		double max_share = 0;
+		for (long seed = 100; seed < 100 + games; seed++) {
+			Game g = new Game(seed);
+			PriorityQueue<Player> player_queue = g.genPlayerQueue(queue_size);
+			Player winner = g.getWinner(player_queue, rounds);
+			double share = g.getMoney(player_queue, winner, rounds) / g.getSum(player_queue);
+			min_share = Math.min(min_share, share);
+			max_share = Math.max(max_share, share);
+		}
+		assertEquals(games, results.getGames());
+		// The winner always starts at the same rank, see Game.getWinner
+		assertEquals(Map.of((queue_size - rounds % queue_size) % queue_size, (long) games), results.getWinnerRanks());
+		assertEquals(min_share, results.getMinShare(), 1e-12);
+		assertEquals(max_share, results.getMaxShare(), 1e-12);
+		assertEquals(games, results.getNanos().getCount());
+		
+		LogHistogram histogram = new LogHistogram();
+		for (int i = 1; i <= 1000; i++)
+			histogram.record(i);
+		assertEquals(1, histogram.getMin());
+		assertEquals(1000, histogram.getMax());
+		assertEquals(500, histogram.getPercentile(0.5), 500 / 8);
+		assertEquals(990, histogram.getPercentile(0.99), 990 / 8);
+	}
+	
+	/**
+	 * Check that every point of a sweep matches running that number of players and rounds on its own. <br>
+	 * Why: {@link Sweep} runs each roster forwards once through every round count instead of starting again each time.
+	 */
+	@Test
+	void test_sweep() throws IOException {
+		int[] players = { 5, 10, 37 };
+		long[] rounds = { 100, 1, 15, 40 };
+		StringWriter csv = new StringWriter();
+		StringWriter heatmap = new StringWriter();
+		new Sweep(game, players, rounds).run(csv, heatmap);
+		
+		String[] rows = csv.toString().split("\n");
+		assertEquals(1 + players.length * rounds.length, rows.length);
+		for (int i = 1; i < rows.length; i++) {
+			String[] row = rows[i].split(",");
+			int queue_size = Integer.parseInt(row[0]);
+			int n = Integer.parseInt(row[1]);
+			PriorityQueue<Player> player_queue = game.runNRounds(game.genPlayerQueue(queue_size), n);
+			assertEquals(player_queue.peek().getName(), "Player " + row[3]);
+			assertEquals(player_queue.peek().getMoney(), Double.parseDouble(row[5]));
+			assertEquals("1", row[2]);
+			assertTrue(Double.parseDouble(row[7]) < 1e-12);
+		}
+		assertEquals("players\\rounds,1,15,40,100", heatmap.toString().split("\n")[0]);
+		assertEquals("37,1,1,1,1", heatmap.toString().split("\n")[3]);
+		assertArrayEquals(new long[] { 3, 5, 7, 9 }, Sweep.parseRange("3:9:2"));
+	}
+	
+	/**
+	 * Check that the lazy engine gives the same position and money for every player as the formulas, one round at a
+	 * time or many at once. <br>
+	 * Why: {@link LazyRoundEngine} never halves anyone until asked, so a mistake in the round stamps would only show
+	 * up in the money.
+	 */
+	@Test
+	void test_lazy_engine() {
+		int queue_size = 37;
+		PriorityQueue<Player> player_queue = game.genPlayerQueue(queue_size);
+		Standings standings = game.getStandings(player_queue);
+		for (long rounds : new long[] { 1, 15, 36, 37, 38, 200, 1079, 123_456 }) {
+			LazyRoundEngine one = new LazyRoundEngine(player_queue);
+			for (long i = 0; i < rounds; i++)
+				one.runRound();
+			LazyRoundEngine many = game.runNRoundsLazy(player_queue, rounds / 3);
+			many.runNRounds(rounds - rounds / 3);
+			
+			for (int rank = 0; rank < queue_size; rank++) {
+				int position = standings.getPosition(rank, rounds);
+				double money = standings.getMoney(rank, rounds);
+				assertSame(standings.getPlayer(rank), one.getPlayer(position));
+				assertSame(standings.getPlayer(rank), many.getPlayer(position));
+				assertEquals(money, one.getMoney(position), 1e-14 * standings.getSum());
+				assertEquals(money, many.getMoney(position), 1e-14 * standings.getSum());
+			}
+			assertEquals(many.getRound(), rounds);
+		}
+		
+		int rounds = 1079;
+		Player winner = game.getWinner(player_queue, rounds);
+		double winner_money = game.getMoney(player_queue, winner, rounds);
+		PriorityQueue<Player> player_queue_lazy = game.runNRoundsLazy(player_queue, rounds).toQueue();
+		assertSame(winner, player_queue_lazy.peek());
+		assertEquals(winner_money, player_queue_lazy.peek().getMoney(), 1e-14 * winner_money);
+	}
+	
+	/**
+	 * Check that a table halving with any other kernel (the Vector API one if it is there, and one that halves from
+	 * the bottom up) ends each round with the same players in the same order, and money within rounding of the heap. <br>
+	 * Why: only {@link RoundKernel#SCALAR} adds the pot up in the same order as the heap, so the others can only be
+	 * checked to within a rounding, and the table takes a different path for them.
+	 */
+	@Test
+	void test_round_kernel() {
+		int queue_size = 100;
+		int rounds = 37;
+		RoundKernel backwards = new RoundKernel("backwards") {
+			@Override
+			public double halve(double[] money, int from, int to) {
+				double pot = 0;
+				for (int i = to - 1; i >= from; i--) {
+					double pmoney = money[i] / 2;
+					money[i] -= pmoney;
+					pot += pmoney;
+				}
+				return pot;
+			}
+		};
+		assertSame(RoundKernel.SCALAR, RoundKernel.forName("scalar"));
+		assertSame(RoundKernel.vector(), RoundKernel.forName("vector"));
+		assertEquals(RoundKernel.isVectorAvailable(), RoundKernel.vector() != RoundKernel.SCALAR);
+		assertThrows(IllegalArgumentException.class, () -> RoundKernel.forName("simd"));
+		
+		PlayerTable scalar = game.genPlayerTable(queue_size);
+		scalar.setKernel(RoundKernel.SCALAR);
+		for (RoundKernel kernel : new RoundKernel[] { RoundKernel.vector(), backwards }) {
+			PlayerTable table = scalar.copy();
+			table.setKernel(kernel);
+			PlayerTable expected = scalar.copy();
+			for (int i = 0; i < rounds; i++) {
+				assertEquals(expected.runRound(), table.runRound(), 1e-14 * expected.getSum());
+				for (int position = 0; position < queue_size; position++) {
+					assertEquals(expected.getId(position), table.getId(position));
+					assertEquals(expected.getMoney(position), table.getMoney(position), 1e-14 * expected.getSum());
+				}
+			}
+			assertSame(kernel, table.copy().getKernel());
+		}
+		
+		double[] money = { 8, 4, 2, 1, 0.5, 3, 7, 9, 11 };
+		double[] halved = money.clone();
+		assertEquals(22.75, RoundKernel.vector().halve(halved, 0, money.length));
+		for (int i = 0; i < money.length; i++)
+			assertEquals(money[i] / 2, halved[i]);
+	}
+	
+	/**
+	 * Check that the formulas for other rules (a different fraction, or more than one recipient) give the same
+	 * positions and money as brute forcing every round, including rules where the game takes a few rounds to rotate. <br>
+	 * Why: the formulas in {@link GameRules} only hold once the poorest players pass everyone else, and the position
+	 * and pot rounds depend on gcd(p, k), so every one of those cases needs checking against {@link RulesRoundEngine}.
+	 */
+	@Test
+	void test_game_rules() {
+		GameRules[] all_rules = { GameRules.CLASSIC, new GameRules(0.3, 1), new GameRules(0.5, 3), new GameRules(0.25, 4),
+				new GameRules(0.9, 2), new GameRules(0.7, 6), new GameRules(0.05, 1), new GameRules(0.1, 5) };
+		for (int queue_size : new int[] { 12, 37 }) {
+			PriorityQueue<Player> player_queue = game.genPlayerQueue(queue_size);
+			for (GameRules rules : all_rules) {
+				RulesRoundEngine start = new RulesRoundEngine(player_queue, rules);
+				for (long rounds : new long[] { 1, 5, 12, 13, 37, 100, 1079 }) {
+					RulesRoundEngine brute = game.runNRounds(player_queue, rounds, rules);
+					Player winner = game.getWinner(player_queue, rounds, rules);
+					assertSame(brute.getPlayer(0), winner);
+					assertEquals(brute.getMoney(0), game.getMoney(player_queue, winner, rounds, rules), 1e-13 * brute.getSum());
+					if (!start.rotates()) continue;
+					for (int rank = 0; rank < queue_size; rank++) {
+						int position = rules.getPosition(rank, queue_size, rounds);
+						assertEquals(rank, rules.getStartRank(position, queue_size, rounds));
+						assertSame(start.getPlayer(rank), brute.getPlayer(position));
+						assertEquals(brute.getMoney(position), rules.getMoney(start.getMoney(rank), rank, queue_size,
+								start.getSum(), rounds), 1e-13 * brute.getSum());
+					}
+				}
+			}
+		}
+		
+		// The classic rules are the same as the classic methods.
+		PriorityQueue<Player> player_queue = game.genPlayerQueue(100);
+		Player winner = game.getWinner(player_queue, 1079);
+		assertSame(winner, game.getWinner(player_queue, 1079, new GameRules(0.5, 1)));
+		assertEquals(game.getMoney(player_queue, winner, 1079), game.getMoney(player_queue, winner, 1079, GameRules.CLASSIC));
+		
+		assertFalse(new GameRules(0.05, 1).rotates(3, 10, 1, 12));
+		assertThrows(IllegalArgumentException.class, () -> new GameRules(0, 1));
+		assertThrows(IllegalArgumentException.class, () -> new GameRules(0.5, 0));
+		assertThrows(IllegalArgumentException.class, () -> new RulesRoundEngine(game.genPlayerQueue(2), new GameRules(0.5, 3)));
+	}
+	
+	/**
+	 * Check that the query server gives the same winner, money and standings as the standings themselves, keeps the
+	 * roster cached, and turns bad queries into errors rather than failing. <br>
+	 * Why: {@link QueryServer} is the only thing between other processes and the game, so anything it gets wrong is
+	 * wrong for all of them.
+	 */
+	@Test
+	void test_query_server() throws IOException, InterruptedException {
+		RosterCache cache = new RosterCache(4);
+		QueryServer server = new QueryServer(0, cache);
+		server.start();
+		try {
+			HttpClient client = HttpClient.newHttpClient();
+			String base = "http://localhost:" + server.getPort();
+			Standings standings = cache.get(new Game(7), 500);
+			
+			HttpResponse<String> response = get(client, base + "/winner?players=500&seed=7&rounds=1079");
+			assertEquals(200, response.statusCode());
+			assertTrue(response.body().contains("\"id\":" + standings.getWinner(1079).getId() + ","));
+			assertTrue(response.body().contains("\"money\":" + standings.getWinnerMoney(1079) + "}"));
+			
+			response = get(client, base + "/money?players=500&seed=7&rounds=15&position=3");
+			int start_rank = standings.getStartRank(3, 15);
+			assertTrue(response.body().contains("\"id\":" + standings.getPlayer(start_rank).getId() + ","));
+			assertTrue(response.body().contains("\"money\":" + standings.getMoney(start_rank, 15) + "}"));
+			
+			response = get(client, base + "/standings?players=500&seed=7&rounds=37&top=3");
+			double[] top = standings.getTopMoney(37, 3);
+			for (int i = 0; i < top.length; i++)
+				assertTrue(response.body().contains("{\"position\":" + i + ",\"id\":"
+						+ standings.getPlayer(standings.getStartRank(i, 37)).getId() + ","));
+			assertTrue(response.body().contains("\"money\":" + top[2] + "}]}"));
+			// Every query was for the same roster, which was already cached.
+			assertEquals(1, cache.size());
+			
+			assertEquals(400, get(client, base + "/winner?players=500&rounds=lots").statusCode());
+			assertEquals(400, get(client, base + "/money?players=0&rounds=1").statusCode());
+			assertEquals(400, get(client, base + "/money?players=500&rounds=1&position=4294967296").statusCode());
+			assertEquals(404, get(client, base + "/winner?roster=missing&rounds=1").statusCode());
+			assertEquals(405, get(client, base + "/load?name=x&file=x").statusCode());
+			
+			// A query is counted just before its answer is sent, so every query before this one is, but not this one.
+			response = get(client, base + "/stats");
+			assertTrue(response.body().startsWith("{\"queries\":8,"));
+		} finally {
+			server.stop();
+		}
+	}
+	
+	private static HttpResponse<String> get(HttpClient client, String url) throws IOException, InterruptedException {
+		return client.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString());
+	}
+	
+	/**
+	 * Check that the state at any round from checkpoints is the exact same as running every round from the start,
+	 * whether it comes from the last state, a checkpoint, or a new run picking up the checkpoints of an old one. <br>
+	 * Why: {@link Checkpoints} only saves the players and the round, so anything else a round depends on would make
+	 * a resumed run drift away from one that never stopped.
+	 */
+	@Test
+	void test_checkpoints() throws IOException {
+		int queue_size = 200;
+		Path dir = Files.createTempDirectory("checkpoints");
+		try {
+			Checkpoints checkpoints = new Checkpoints(dir, game, queue_size, 50);
+			for (int rounds : new int[] { 0, 120, 121, 49, 1079, 260 }) {
+				PlayerTable table = checkpoints.getState(rounds);
+				assertEquals(rounds, table.getRound());
+				// The brute force method changes the players in the heap, so start from a new one every time.
+				PriorityQueue<Player> player_queue_brute = game.genPlayerQueue(queue_size);
+				if (rounds > 0) player_queue_brute = game.runNRounds(player_queue_brute, rounds);
+				for (int i = 0; i < queue_size; i++) {
+					Player p = player_queue_brute.poll();
+					assertEquals(p.getName(), "Player " + table.getId(i));
+					assertEquals(p.getMoney(), table.getMoney(i));
+				}
+			}
+			assertEquals(List.of(50L, 100L, 150L, 200L, 250L, 300L), List.copyOf(checkpoints.getRounds()).subList(0, 6));
+			assertEquals(1050L, checkpoints.getRounds().last());
+			
+			// A new run picks up where the old one got to.
+			Checkpoints resumed = new Checkpoints(dir, game, queue_size, 50);
+			assertEquals(checkpoints.getRounds(), resumed.getRounds());
+			PlayerTable expected = checkpoints.getState(1080);
+			PlayerTable table = resumed.getState(1080);
+			for (int i = 0; i < queue_size; i++) {
+				assertEquals(expected.getId(i), table.getId(i));
+				assertEquals(expected.getMoney(i), table.getMoney(i));
+			}
+			
+			assertThrows(IllegalStateException.class, () -> new Checkpoints(dir, new Game(2), queue_size, 50));
+			assertThrows(IllegalArgumentException.class, () -> resumed.getState(-1));
+		} finally {
+			// Files are deleted in the reverse order they are added, so the directory goes last.
+			dir.toFile().deleteOnExit();
+			for (File file : dir.toFile().listFiles())
+				file.deleteOnExit();
+		}
+	}
+	
+	/**
+	 * Check that a roster in a file gives the same results as the heap, and keeps them after being opened again, and
+	 * puts a recipient that ties with the richest after them like {@link PlayerTable}. <br>
+	 * Why: {@link MappedRoster} runs the same methods on the records in the file instead of on the heap.
+	 */
+	@Test
+	void test_mapped_roster() throws IOException {
+		int queue_size = 100;
+		int rounds = 37;
+		Path file = Files.createTempFile("roster", ".bin");
+		// Mapped files cannot be deleted while mapped on some systems, so leave it until the end.
+		file.toFile().deleteOnExit();
+		
+		PriorityQueue<Player> player_queue = game.genPlayerQueue(queue_size);
+		try (MappedRoster roster = MappedRoster.create(file, game, queue_size)) {
+			Player winner = game.getWinner(player_queue, rounds);
+			assertEquals(winner.getName(), roster.getWinner(rounds).getName());
+			assertEquals(game.getMoney(player_queue, winner, rounds), roster.getWinnerMoney(rounds), 1e-9);
+			assertEquals(game.getSum(player_queue), roster.getSum());
+			roster.runNRounds(rounds);
+		}
+		
+		PriorityQueue<Player> player_queue_brute = game.runNRounds(player_queue, rounds);
+		try (MappedRoster roster = MappedRoster.open(file)) {
+			assertEquals(roster.getRound(), rounds);
+			for (int i = 0; i < queue_size; i++)
+				assertTrue( roster.getPlayer(i).equals(player_queue_brute.poll()) );
+			assertEquals(roster.getId(0), roster.getPlayer(0).getId());
+		}
+		
+		// After one round the richest has 2 and the last player gets a pot of 2.
+		Path tie_file = Files.createTempFile("roster", ".bin");
+		tie_file.toFile().deleteOnExit();
+		MappedRoster.create(tie_file, game, 3).close();
+		double[] tie_money = {4, 0, 0};
+		ByteBuffer records = ByteBuffer.allocate(tie_money.length * MappedRoster.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < tie_money.length; i++)
+			records.putInt(i).putDouble(tie_money[i]);
+		records.flip();
+		try (FileChannel channel = FileChannel.open(tie_file, StandardOpenOption.WRITE)) {
+			channel.write(records, MappedRoster.HEADER_SIZE);
+		}
+		PlayerTable table = new PlayerTable(new int[] {0, 1, 2}, tie_money.clone());
+		table.runRound();
+		try (MappedRoster roster = MappedRoster.open(tie_file)) {
+			roster.runRound();
+			for (int i = 0; i < tie_money.length; i++)
+				assertEquals(table.getPlayer(i).getName(), roster.getPlayer(i).getName());
+		}
+	}
+	
 	@Test
 	void test_zero_rounds() {
 		// Brute force method doesnt work for 0 rounds so I just compare my method to poll
@@ -223,8 +1075,141 @@ class test_game {
 		assertTrue( winner.getName().equals(winner_brute.getName()) );
 	}
 	
+	/**
+	 * Check that the standings give every player the same position and money as the brute force method, no winner
+	 * when there are no players, and reject a position that is not there or a negative number of top players. <br>
+	 * Why: {@link Standings} uses the same rotation as {@link Game#getWinner(PriorityQueue, long)} for every player.
+	 */
+	@Test
+	void test_standings() {
+		int queue_size = 10;
+		int rounds = 23;
+		Standings standings = game.getStandings(game.genPlayerQueue(queue_size));
+		PriorityQueue<Player> player_queue_brute = game.runNRounds(game.genPlayerQueue(queue_size), rounds);
+		
+		int[] positions = standings.getPositions(rounds);
+		double[] money = standings.getMoney(rounds);
+		int[] top = standings.getTopRanks(rounds, 3);
+		for (int position = 0; position < queue_size; position++) {
+			Player player_brute = player_queue_brute.poll();
+			int rank = standings.getStartRank(position, rounds);
+			
+			assertEquals(positions[rank], position);
+			assertEquals(standings.getPlayer(rank).getName(), player_brute.getName());
+			assertEquals(player_brute.getMoney(), money[rank], 1e-9);
+			if (position < top.length)
+				assertEquals(top[position], rank);
+		}
+		
+		Standings empty = new Standings(new PriorityQueue<>(new PlayerComp()));
+		assertNull(empty.getWinner(rounds));
+		assertTrue(Double.isNaN(empty.getWinnerMoney(rounds)));
+		assertThrows(IndexOutOfBoundsException.class, () -> empty.getPosition(0, rounds));
+		assertThrows(IndexOutOfBoundsException.class, () -> empty.getStartRank(0, rounds));
+		assertEquals(0, empty.getTopRanks(rounds, 5).length);
+		assertThrows(IllegalArgumentException.class, () -> standings.getTopRanks(rounds, -1));
+		assertThrows(IllegalArgumentException.class, () -> standings.getTopMoney(rounds, -1));
+	}
+	
+	/**
+	 * Check that the exact brute force method keeps the right order and sum past the point the README shows
+	 * the normal brute force method breaking (5000 players, 1080 rounds). <br>
+	 * Why: {@link ExactRoundEngine} should be usable to check the results of {@link Game#getWinner(PriorityQueue, long)}.
+	 */
+	@Test
+	void test_exact_rounds() {
+		int queue_size = 5000;
+		int rounds = 1080;
+		Standings standings = game.getStandings(game.genPlayerQueue(queue_size));
+		ExactRoundEngine engine = game.runNRoundsExact(game.genPlayerQueue(queue_size), rounds);
+		
+		for (int position = 0; position < queue_size; position++) {
+			Player player = standings.getPlayer(standings.getStartRank(position, rounds));
+			assertEquals(engine.getPlayer(position).getName(), player.getName());
+		}
+		assertEquals(standings.getSum(), engine.getSum());
+		assertEquals(standings.getMoney(standings.getStartRank(0, rounds), rounds), engine.getMoney(0), 1e-6);
+	}
+	
+	/**
+	 * Check that cached standings give the same winner and money as the normal methods, that the cache
+	 * removes the least recently used roster, and that a roster many threads ask for at once is only built once. <br>
+	 * Why: {@link RosterCache} is meant to be used in place of re-running the normal methods on the same heap.
+	 */
+	@Test
+	void test_roster_cache() throws Exception {
+		int queue_size = 50;
+		long rounds = 1234;
+		RosterCache cache = new RosterCache(2);
+		PriorityQueue<Player> player_queue = game.genPlayerQueue(queue_size);
+		
+		Standings standings = cache.get(game, queue_size);
+		Player winner = game.getWinner(player_queue, rounds);
+		assertEquals(winner.getName(), standings.getWinner(rounds).getName());
+		assertEquals(game.getMoney(player_queue, winner, rounds), standings.getWinnerMoney(rounds), 1e-9);
+		assertEquals(standings.getStartRank(standings.getWinner(rounds)), standings.getStartRank(0, rounds));
+		
+		assertSame(standings, cache.get(game, queue_size));
+		cache.get(player_queue);
+		cache.get(game, queue_size);
+		cache.get(game, queue_size + 1);
+		// The heap was used the longest time ago, so it should be gone.
+		assertEquals(cache.size(), 2);
+		assertSame(standings, cache.get(game, queue_size));
+		assertNotSame(cache.get(player_queue), cache.get(new PriorityQueue<>(player_queue)));
+		
+		// Standings reads the heap with toArray once per build, so slow it down enough for every thread to miss.
+		AtomicInteger builds = new AtomicInteger();
+		PriorityQueue<Player> slow_queue = new PriorityQueue<>(player_queue) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			public <T> T[] toArray(T[] a) {
+				builds.incrementAndGet();
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.toArray(a);
+			}
+		};
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		List<Callable<Standings>> gets = Collections.nCopies(8, () -> cache.get(slow_queue));
+		List<Future<Standings>> results = pool.invokeAll(gets);
+		pool.shutdown();
+		assertEquals(1, builds.get());
+		for (Future<Standings> result : results)
+			assertSame(results.get(0).get(), result.get());
+	}
+	
 	@Test
 	void test_money() {
+		int queue_size = 10;
+		int rounds = 11;
+		PriorityQueue<Player> player_queue = game.genPlayerQueue(queue_size);
+		PriorityQueue<Player> player_queue_brute = game.genPlayerQueue(queue_size);
+		
+		Player winner = game.getWinner(player_queue, rounds);
+		double winner_money = game.getMoney(player_queue, winner, rounds);
+		
+		Player winner_brute = game.runNRounds(player_queue_brute, rounds).peek();
+		
+		assertEquals(winner_brute.getMoney(), winner_money, 1e-9);
+	}
+	
+	/**
+	 * Check that the money can be calculated for a round count that does not fit in an int. <br>
+	 * Why: {@link Game#getMoney(Player, int, double, long)} should take the same time for any number of rounds.
+	 */
+	@Test
+	void test_money_long_rounds() {
+		// With 3 players and 3*k rounds the winner approaches (sum/2) / (1 - 1/8) = 4/7 of the sum.
+		Player winner = new Player("a", 5);
+		double sum = 100;
+		
+		double money = game.getMoney(winner, 3, sum, 3_000_000_000_000L);
 		
+		assertEquals(sum * 4 / 7, money, 1e-9);
 	}
 }
@@ -0,0 +1,55 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+public final class VectorRoundKernel extends RoundKernel {
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	/**
+	 * Halves the money of several players at a time with the Vector API, as many as fit in the widest vector the CPU
+	 * has (4 with AVX2, 8 with AVX-512).
+	 * <p>
+	 * Logic: <br>
+	 * Every lane keeps its own pot, and there are two vectors of pots so one add does not have to wait for the one
+	 * before it. The pots are only added together at the end, along with any players left over that do not fill a
+	 * whole vector. Multiplying by 0.5 is exactly the same as dividing by 2, so everyone's money is the same as
+	 * {@linkplain RoundKernel#SCALAR} gives, only the pot is added up in a different order.
+	 * <p>
+	 * This needs {@code jdk.incubator.vector}, so it is not in {@code src}. Compile it along with {@code src} and run
+	 * with the module added, ie) <br>
+	 * {@code javac --add-modules jdk.incubator.vector -d out src/*.java vector/*.java} <br>
+	 * {@code java --add-modules jdk.incubator.vector -Dmoney.kernel=vector -cp out RunGame}
+	 * <p>
+	 * Time: O(p / L) <br>
+	 * Space: O(1) <br>
+	 * where p = number of players, and L = number of lanes.
+	 */
+	public VectorRoundKernel() {
+		super("vector");
+	}
+
+	@Override
+	public double halve(double[] money, int from, int to) {
+		int lanes = SPECIES.length();
+		DoubleVector pot_a = DoubleVector.zero(SPECIES);
+		DoubleVector pot_b = DoubleVector.zero(SPECIES);
+		int i = from;
+		for (int bound = from + (to - from) / (2 * lanes) * (2 * lanes); i < bound; i += 2 * lanes) {
+			DoubleVector a = DoubleVector.fromArray(SPECIES, money, i);
+			DoubleVector b = DoubleVector.fromArray(SPECIES, money, i + lanes);
+			DoubleVector half_a = a.mul(0.5);
+			DoubleVector half_b = b.mul(0.5);
+			a.sub(half_a).intoArray(money, i);
+			b.sub(half_b).intoArray(money, i + lanes);
+			pot_a = pot_a.add(half_a);
+			pot_b = pot_b.add(half_b);
+		}
+		double pot = pot_a.add(pot_b).reduceLanes(VectorOperators.ADD);
+		for (; i < to; i++) {
+			double pmoney = money[i] / 2;
+			money[i] -= pmoney;
+			pot += pmoney;
+		}
+		return pot;
+	}
+}